@@ -2,6 +2,8 @@ import api from '@/services/api'
 
 const state = {
   certificates: [],
+  nextCursor: null,
+  hasMore: false,
   caCertificates: [],
   loading: false,
   error: null
@@ -9,6 +11,7 @@ const state = {
 
 const getters = {
   allCertificates: state => state.certificates,
+  hasMoreCertificates: state => state.hasMore,
   caCertificates: state => state.caCertificates,
   isLoading: state => state.loading,
   error: state => state.error,
@@ -25,11 +28,18 @@ const mutations = {
   SET_CERTIFICATES(state, certificates) {
     state.certificates = certificates
   },
+  APPEND_CERTIFICATES(state, certificates) {
+    state.certificates = state.certificates.concat(certificates)
+  },
+  SET_PAGE(state, { nextCursor, hasMore }) {
+    state.nextCursor = nextCursor
+    state.hasMore = hasMore
+  },
   SET_CA_CERTIFICATES(state, certificates) {
     state.caCertificates = certificates
   },
   ADD_CERTIFICATE(state, certificate) {
-    state.certificates.push(certificate)
+    state.certificates.unshift(certificate)
   },
   UPDATE_CERTIFICATE(state, updatedCertificate) {
     const index = state.certificates.findIndex(cert => cert.id === updatedCertificate.id)
@@ -48,9 +58,36 @@ const actions = {
       commit('SET_LOADING', true)
       commit('SET_ERROR', null)
       
+      // The list endpoint is keyset-paged; this loads the newest page only
       const response = await api.get('/certificates')
-      commit('SET_CERTIFICATES', response.data.data)
-      return response.data.data
+      const page = response.data.data
+      commit('SET_CERTIFICATES', page.certificates)
+      commit('SET_PAGE', page)
+      return page.certificates
+    } catch (error) {
+      const message = error.response?.data?.message || 'Failed to fetch certificates'
+      commit('SET_ERROR', message)
+      throw error
+    } finally {
+      commit('SET_LOADING', false)
+    }
+  },
+
+  async fetchMoreCertificates({ commit, state }) {
+    if (!state.hasMore) {
+      return []
+    }
+    try {
+      commit('SET_LOADING', true)
+      commit('SET_ERROR', null)
+
+      const response = await api.get('/certificates', {
+        params: { cursor: state.nextCursor }
+      })
+      const page = response.data.data
+      commit('APPEND_CERTIFICATES', page.certificates)
+      commit('SET_PAGE', page)
+      return page.certificates
     } catch (error) {
       const message = error.response?.data?.message || 'Failed to fetch certificates'
       commit('SET_ERROR', message)
@@ -0,0 +1,85 @@
+package rs.ac.uns.ftn.pkisystem.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Per-request JWT cost in JwtRequestFilter: the old path rebuilt the key and parser and verified the token four times
+// (subject, jti, then subject and expiry again in validateToken), the current one verifies once with a cached parser
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtParseBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret";
+
+    @Param({"HS512", "ES256"})
+    private String algorithm;
+
+    private String token;
+    private Key verificationKey;
+    private JwtParser cachedParser;
+
+    @Setup
+    public void setUp() {
+        Key signingKey;
+        if ("HS512".equals(algorithm)) {
+            signingKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+            verificationKey = signingKey;
+        } else {
+            KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+            signingKey = keyPair.getPrivate();
+            verificationKey = keyPair.getPublic();
+        }
+
+        Date now = new Date();
+        token = Jwts.builder()
+                .claim("uid", 1L)
+                .claim("role", "ADMIN")
+                .claim("email", "benchmark@test.local")
+                .setSubject("benchmark@test.local")
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 3_600_000L))
+                .signWith(signingKey, SignatureAlgorithm.forName(algorithm))
+                .compact();
+
+        cachedParser = Jwts.parserBuilder().setSigningKey(verificationKey).build();
+    }
+
+    @Benchmark
+    public void rebuiltParserFourParses(Blackhole blackhole) {
+        blackhole.consume(parseWithNewParser().getSubject());
+        blackhole.consume(parseWithNewParser().getId());
+        blackhole.consume(parseWithNewParser().getSubject());
+        blackhole.consume(parseWithNewParser().getExpiration().before(new Date()));
+    }
+
+    @Benchmark
+    public void cachedParserSingleParse(Blackhole blackhole) {
+        Claims claims = cachedParser.parseClaimsJws(token).getBody();
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(claims.getId());
+        blackhole.consume(claims.getExpiration().before(new Date()));
+    }
+
+    private Claims parseWithNewParser() {
+        // HS512 also re-derived the key from the secret on every call
+        Key key = "HS512".equals(algorithm) ? Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)) : verificationKey;
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+}
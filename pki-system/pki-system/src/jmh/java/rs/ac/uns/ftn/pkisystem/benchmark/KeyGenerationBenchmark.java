@@ -0,0 +1,56 @@
+package rs.ac.uns.ftn.pkisystem.benchmark;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.*;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
+import rs.ac.uns.ftn.pkisystem.service.KeyPairPool;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one issuance per key algorithm: generating the subject key, and the issuer signing the certificate
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyGenerationBenchmark {
+
+    @Param({"RSA_2048", "RSA_3072", "RSA_4096", "EC_P256", "EC_P384", "ED25519"})
+    private KeyAlgorithm algorithm;
+
+    // Without init() nothing is pooled, so take() generates inline exactly as a cold pool does
+    private final KeyPairPool keyPairPool = new KeyPairPool();
+
+    private KeyPair issuerKeyPair;
+    private KeyPair subjectKeyPair;
+    private JcaContentSignerBuilder signerBuilder;
+
+    @Setup
+    public void setUp() throws Exception {
+        issuerKeyPair = keyPairPool.take(algorithm);
+        subjectKeyPair = keyPairPool.take(algorithm);
+        signerBuilder = new JcaContentSignerBuilder(KeyAlgorithm.signatureAlgorithmFor(issuerKeyPair.getPublic()));
+    }
+
+    @Benchmark
+    public KeyPair generateKeyPair() throws Exception {
+        return keyPairPool.take(algorithm);
+    }
+
+    @Benchmark
+    public X509CertificateHolder signCertificate() throws Exception {
+        Date now = new Date();
+        X509v3CertificateBuilder certBuilder = new JcaX509v3CertificateBuilder(
+                new X500Name("CN=Benchmark CA"), BigInteger.valueOf(now.getTime()), now,
+                new Date(now.getTime() + 86_400_000L), new X500Name("CN=Benchmark"), subjectKeyPair.getPublic());
+        return certBuilder.build(signerBuilder.build(issuerKeyPair.getPrivate()));
+    }
+}
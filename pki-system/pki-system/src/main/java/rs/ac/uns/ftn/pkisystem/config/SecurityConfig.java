@@ -11,16 +11,22 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.firewall.FirewalledRequest;
+import org.springframework.security.web.firewall.HttpFirewall;
+import org.springframework.security.web.firewall.StrictHttpFirewall;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import rs.ac.uns.ftn.pkisystem.security.JwtRequestFilter;
 import rs.ac.uns.ftn.pkisystem.service.UserDetailsServiceImpl;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.util.Arrays;
 
 @Configuration
@@ -59,6 +65,9 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/captcha/**").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
+                        .requestMatchers("/api/crl/**").permitAll()
+                        .requestMatchers("/api/ocsp/**").permitAll()
+                        .requestMatchers("/.well-known/**").permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/api/ca/**").hasAnyRole("ADMIN", "CA_USER")
                         .requestMatchers("/api/templates/**").hasAnyRole("ADMIN", "CA_USER")
@@ -76,6 +85,28 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Base64 in OCSP GET paths contains '/' and "//", percent-encoded or not; only that path is let through with them
+    @Bean
+    public WebSecurityCustomizer ocspFirewallCustomizer() {
+        StrictHttpFirewall strict = new StrictHttpFirewall();
+        StrictHttpFirewall ocsp = new StrictHttpFirewall();
+        ocsp.setAllowUrlEncodedSlash(true);
+        ocsp.setAllowUrlEncodedDoubleSlash(true);
+
+        return web -> web.httpFirewall(new HttpFirewall() {
+            @Override
+            public FirewalledRequest getFirewalledRequest(HttpServletRequest request) {
+                boolean ocspGet = request.getRequestURI().startsWith(request.getContextPath() + "/api/ocsp/");
+                return (ocspGet ? ocsp : strict).getFirewalledRequest(request);
+            }
+
+            @Override
+            public HttpServletResponse getFirewalledResponse(HttpServletResponse response) {
+                return strict.getFirewalledResponse(response);
+            }
+        });
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
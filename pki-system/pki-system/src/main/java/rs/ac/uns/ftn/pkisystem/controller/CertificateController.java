@@ -1,16 +1,26 @@
 package rs.ac.uns.ftn.pkisystem.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import rs.ac.uns.ftn.pkisystem.dto.*;
+import rs.ac.uns.ftn.pkisystem.exception.IssuanceQueueFullException;
 import rs.ac.uns.ftn.pkisystem.service.CertificateService;
+import rs.ac.uns.ftn.pkisystem.service.IssuanceJobService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/certificates")
@@ -18,9 +28,18 @@ import java.util.List;
 @CrossOrigin(origins = {"https://localhost:3000", "https://127.0.0.1:3000", "http://localhost:5173", "https://localhost:5173"})
 public class CertificateController {
 
+    // Keeps long-polls below the servlet async request timeout
+    private static final long MAX_JOB_WAIT_SECONDS = 25;
+
     @Autowired
     private CertificateService certificateService;
 
+    @Autowired
+    private IssuanceJobService issuanceJobService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'CA_USER')")
     public ResponseEntity<ApiResponse<CertificateDTO>> createCertificate(@Valid @RequestBody CreateCertificateRequest request) {
@@ -32,11 +51,85 @@ public class CertificateController {
         }
     }
 
+    // Queues the issuance and returns immediately, the job resource reports the outcome
+    @PostMapping("/async")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CA_USER')")
+    public ResponseEntity<ApiResponse<IssuanceJobDTO>> createCertificateAsync(@Valid @RequestBody CreateCertificateRequest request) {
+        try {
+            IssuanceJobDTO job = issuanceJobService.submit(request);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/certificates/jobs/" + job.getId()))
+                    .body(ApiResponse.success("Certificate issuance queued", job));
+        } catch (IssuanceQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // With waitSeconds > 0 the response is held until the job finishes or the wait runs out
+    @GetMapping("/jobs/{id}")
+    public CompletableFuture<ResponseEntity<ApiResponse<IssuanceJobDTO>>> getIssuanceJob(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") long waitSeconds) {
+        try {
+            long waitMs = Math.min(Math.max(waitSeconds, 0), MAX_JOB_WAIT_SECONDS) * 1000;
+            return issuanceJobService.awaitJob(id, waitMs)
+                    .thenApply(job -> ResponseEntity.ok(ApiResponse.success("Issuance job retrieved successfully", job)));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage())));
+        }
+    }
+
+    // Streams one JSON line per item as soon as its chunk is committed
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CA_USER')")
+    public ResponseEntity<?> createCertificateBatch(@Valid @RequestBody BatchCreateCertificateRequest request) {
+        try {
+            CertificateService.BatchIssuance batch = certificateService.startCertificateBatch(request);
+
+            StreamingResponseBody body = outputStream -> certificateService.issueCertificateBatch(batch, result -> {
+                try {
+                    outputStream.write(objectMapper.writeValueAsBytes(result));
+                    outputStream.write('\n');
+                    outputStream.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(body);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Unfiltered listing, paged like /search so it never loads the whole table
     @GetMapping
-    public ResponseEntity<ApiResponse<List<CertificateDTO>>> getCertificates() {
+    public ResponseEntity<ApiResponse<CertificatePageDTO>> getCertificates(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            CertificateSearchRequest request = new CertificateSearchRequest();
+            request.setCursor(cursor);
+            request.setLimit(limit);
+            CertificatePageDTO page = certificateService.searchCertificates(request);
+            return ResponseEntity.ok(ApiResponse.success("Certificates retrieved successfully", page));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    // Bounded, filterable page of certificates, follow nextCursor for the rest
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<CertificatePageDTO>> searchCertificates(@ModelAttribute CertificateSearchRequest request) {
         try {
-            List<CertificateDTO> certificates = certificateService.getCertificatesForCurrentUser();
-            return ResponseEntity.ok(ApiResponse.success("Certificates retrieved successfully", certificates));
+            CertificatePageDTO page = certificateService.searchCertificates(request);
+            return ResponseEntity.ok(ApiResponse.success("Certificates retrieved successfully", page));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -52,14 +145,20 @@ public class CertificateController {
         }
     }
 
+    // DER by default; ?format=pem|p7b or an Accept of application/x-pem-file / application/pkcs7-mime picks the others
     @GetMapping("/{id}/download")
-    public ResponseEntity<byte[]> downloadCertificate(@PathVariable Long id) {
+    public ResponseEntity<byte[]> downloadCertificate(
+            @PathVariable Long id,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         try {
-            byte[] certificateData = certificateService.downloadCertificate(id);
+            CertificateFormat certificateFormat = CertificateFormat.resolve(format, accept);
+            byte[] certificateData = certificateService.downloadCertificate(id, certificateFormat);
 
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            headers.setContentDispositionFormData("attachment", "certificate_" + id + ".crt");
+            headers.setContentType(certificateFormat.getMediaType());
+            headers.setContentLength(certificateData.length);
+            headers.setContentDispositionFormData("attachment", "certificate_" + id + "." + certificateFormat.getExtension());
 
             return ResponseEntity.ok()
                     .headers(headers)
@@ -69,6 +168,32 @@ public class CertificateController {
         }
     }
 
+    // PEM by default, ?format=p7b or Accept: application/pkcs7-mime for a PKCS#7 bundle
+    @GetMapping("/{id}/chain")
+    public ResponseEntity<byte[]> getCertificateChain(
+            @PathVariable Long id,
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        try {
+            CertificateFormat certificateFormat = CertificateFormat.resolve(format, accept);
+            if (certificateFormat == CertificateFormat.DER) {
+                // DER can only hold a single certificate
+                certificateFormat = CertificateFormat.PEM;
+            }
+            CertificateService.ChainBundle chain = certificateService.getCertificateChain(id, certificateFormat);
+
+            return ResponseEntity.ok()
+                    .contentType(certificateFormat.getMediaType())
+                    .eTag(chain.getETag())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"chain_" + id + "." + certificateFormat.getExtension() + "\"")
+                    .body(chain.getData());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping("/{id}/revoke")
     public ResponseEntity<ApiResponse<CertificateDTO>> revokeCertificate(
             @PathVariable Long id,
@@ -81,6 +206,19 @@ public class CertificateController {
         }
     }
 
+    @PostMapping("/{id}/revoke-subtree")
+    @PreAuthorize("hasAnyRole('ADMIN', 'CA_USER')")
+    public ResponseEntity<ApiResponse<SubtreeRevocationDTO>> revokeCertificateSubtree(
+            @PathVariable Long id,
+            @Valid @RequestBody RevokeCertificateRequest request) {
+        try {
+            SubtreeRevocationDTO result = certificateService.revokeCertificateSubtree(id, request);
+            return ResponseEntity.ok(ApiResponse.success("Certificate subtree revoked successfully", result));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
     @GetMapping("/ca")
     @PreAuthorize("hasAnyRole('ADMIN', 'CA_USER')")
     public ResponseEntity<ApiResponse<List<CertificateDTO>>> getCACertificates() {
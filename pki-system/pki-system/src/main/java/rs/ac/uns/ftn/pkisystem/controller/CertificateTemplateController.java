@@ -0,0 +1,77 @@
+package rs.ac.uns.ftn.pkisystem.controller;
+
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import rs.ac.uns.ftn.pkisystem.dto.ApiResponse;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateTemplateDTO;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateTemplateRequest;
+import rs.ac.uns.ftn.pkisystem.service.CertificateTemplateService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/templates")
+@PreAuthorize("hasAnyRole('ADMIN', 'CA_USER')")
+@CrossOrigin(origins = {"https://localhost:3000", "https://127.0.0.1:3000", "http://localhost:5173", "https://localhost:5173"})
+public class CertificateTemplateController {
+
+    @Autowired
+    private CertificateTemplateService certificateTemplateService;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<CertificateTemplateDTO>>> getTemplates(
+            @RequestParam(required = false) Long issuerId) {
+        try {
+            List<CertificateTemplateDTO> templates = certificateTemplateService.getTemplates(issuerId);
+            return ResponseEntity.ok(ApiResponse.success("Templates retrieved successfully", templates));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<CertificateTemplateDTO>> getTemplate(@PathVariable Long id) {
+        try {
+            CertificateTemplateDTO template = certificateTemplateService.getTemplate(id);
+            return ResponseEntity.ok(ApiResponse.success("Template retrieved successfully", template));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<CertificateTemplateDTO>> createTemplate(
+            @Valid @RequestBody CertificateTemplateRequest request) {
+        try {
+            CertificateTemplateDTO template = certificateTemplateService.createTemplate(request);
+            return ResponseEntity.ok(ApiResponse.success("Template created successfully", template));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<ApiResponse<CertificateTemplateDTO>> updateTemplate(
+            @PathVariable Long id,
+            @Valid @RequestBody CertificateTemplateRequest request) {
+        try {
+            CertificateTemplateDTO template = certificateTemplateService.updateTemplate(id, request);
+            return ResponseEntity.ok(ApiResponse.success("Template updated successfully", template));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<String>> deleteTemplate(@PathVariable Long id) {
+        try {
+            certificateTemplateService.deleteTemplate(id);
+            return ResponseEntity.ok(ApiResponse.success("Template deleted successfully"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package rs.ac.uns.ftn.pkisystem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import rs.ac.uns.ftn.pkisystem.exception.ResourceNotFoundException;
+import rs.ac.uns.ftn.pkisystem.service.CrlService;
+
+// Public CRL distribution point, relying parties fetch these without authenticating
+@RestController
+@RequestMapping("/api/crl")
+@CrossOrigin(origins = {"https://localhost:3000", "https://127.0.0.1:3000", "http://localhost:5173", "https://localhost:5173"})
+public class CrlController {
+
+    private static final MediaType PKIX_CRL = MediaType.parseMediaType("application/pkix-crl");
+
+    @Autowired
+    private CrlService crlService;
+
+    // ETag and Last-Modified let Spring answer If-None-Match / If-Modified-Since with 304
+    @GetMapping("/{issuerId}.crl")
+    public ResponseEntity<byte[]> getCrl(@PathVariable Long issuerId) {
+        try {
+            CrlService.CrlSnapshot crl = crlService.getCrl(issuerId);
+
+            return ResponseEntity.ok()
+                    .contentType(PKIX_CRL)
+                    .eTag(crl.getETag())
+                    .lastModified(crl.getThisUpdate().getTime())
+                    .cacheControl(CacheControl.noCache())
+                    .body(crl.getEncoded());
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package rs.ac.uns.ftn.pkisystem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import rs.ac.uns.ftn.pkisystem.service.JwtKeyService;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Public token verification keys, so other services can check our JWTs locally
+@RestController
+@RequestMapping("/.well-known")
+@CrossOrigin(origins = {"https://localhost:3000", "https://127.0.0.1:3000", "http://localhost:5173", "https://localhost:5173"})
+public class JwksController {
+
+    @Autowired
+    private JwtKeyService jwtKeyService;
+
+    @Value("${jwt.jwks.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    // Keys are published before they start signing, so a cached copy stays usable for the whole max-age
+    @GetMapping(value = "/jwks.json", produces = "application/jwk-set+json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic())
+                .body(jwtKeyService.getJwks());
+    }
+}
@@ -0,0 +1,51 @@
+package rs.ac.uns.ftn.pkisystem.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import rs.ac.uns.ftn.pkisystem.service.OcspService;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Public OCSP endpoint, relying parties query it without authenticating
+@RestController
+@RequestMapping("/api/ocsp")
+public class OcspController {
+
+    private static final MediaType OCSP_RESPONSE = MediaType.parseMediaType("application/ocsp-response");
+
+    @Autowired
+    private OcspService ocspService;
+
+    @PostMapping(consumes = "application/ocsp-request")
+    public ResponseEntity<byte[]> postRequest(@RequestBody byte[] request) {
+        OcspService.OcspResult result = ocspService.respond(request);
+        return ResponseEntity.ok()
+                .contentType(OCSP_RESPONSE)
+                .body(result.getEncoded());
+    }
+
+    // GET form: the DER request base64 and URL encoded in the path, which lets proxies cache the answer.
+    // Spring has already percent-decoded the captured path, and '+' is a base64 character, not a space.
+    @GetMapping("/{*request}")
+    public ResponseEntity<byte[]> getRequest(@PathVariable String request) {
+        byte[] encoded;
+        try {
+            encoded = Base64.getDecoder().decode(request.substring(1));
+        } catch (Exception e) {
+            encoded = new byte[0];
+        }
+
+        OcspService.OcspResult result = ocspService.respond(encoded);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(OCSP_RESPONSE);
+        if (result.isSuccessful()) {
+            long maxAge = Math.max(0, result.getNextUpdate().getTime() - System.currentTimeMillis()) / 1000;
+            response.cacheControl(CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic().noTransform().mustRevalidate())
+                    .lastModified(result.getThisUpdate().getTime());
+        }
+        return response.body(result.getEncoded());
+    }
+}
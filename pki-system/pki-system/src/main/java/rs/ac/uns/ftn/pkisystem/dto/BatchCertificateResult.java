@@ -0,0 +1,38 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+public class BatchCertificateResult {
+    private int index; // Position of the item in the batch request
+    private boolean success;
+    private CertificateDTO certificate;
+    private String error;
+
+    public BatchCertificateResult() {}
+
+    public BatchCertificateResult(int index, boolean success, CertificateDTO certificate, String error) {
+        this.index = index;
+        this.success = success;
+        this.certificate = certificate;
+        this.error = error;
+    }
+
+    public static BatchCertificateResult success(int index, CertificateDTO certificate) {
+        return new BatchCertificateResult(index, true, certificate, null);
+    }
+
+    public static BatchCertificateResult error(int index, String error) {
+        return new BatchCertificateResult(index, false, null, error);
+    }
+
+    // Getters and Setters
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+
+    public CertificateDTO getCertificate() { return certificate; }
+    public void setCertificate(CertificateDTO certificate) { this.certificate = certificate; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,24 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BatchCreateCertificateRequest {
+    @NotNull(message = "Issuer is required")
+    private Long issuerId; // All certificates in a batch share one issuer
+
+    @NotEmpty(message = "At least one certificate is required")
+    @Size(max = 10000, message = "A batch can contain at most 10000 certificates")
+    @Valid
+    private List<CreateCertificateRequest> certificates;
+
+    // Getters and Setters
+    public Long getIssuerId() { return issuerId; }
+    public void setIssuerId(Long issuerId) { this.issuerId = issuerId; }
+
+    public List<CreateCertificateRequest> getCertificates() { return certificates; }
+    public void setCertificates(List<CreateCertificateRequest> certificates) { this.certificates = certificates; }
+}
@@ -0,0 +1,50 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+// Download encodings, picked from ?format= or the Accept header
+public enum CertificateFormat {
+    DER("application/pkix-cert", "crt"),
+    PEM("application/x-pem-file", "pem"),
+    PKCS7("application/pkcs7-mime", "p7b"); // Certificate plus its issuer chain
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    CertificateFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() { return mediaType; }
+    public String getExtension() { return extension; }
+
+    public static CertificateFormat resolve(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            for (CertificateFormat candidate : values()) {
+                if (candidate.name().equalsIgnoreCase(format) || candidate.extension.equalsIgnoreCase(format)) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported certificate format: " + format);
+        }
+
+        if (accept != null && !accept.isBlank()) {
+            List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(accepted);
+            for (MediaType mediaType : accepted) {
+                for (CertificateFormat candidate : values()) {
+                    if (mediaType.isConcrete() && mediaType.isCompatibleWith(candidate.mediaType)) {
+                        return candidate;
+                    }
+                }
+            }
+        }
+
+        // Wildcards and octet-stream keep the original raw DER download
+        return DER;
+    }
+}
@@ -0,0 +1,27 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+import java.util.List;
+
+public class CertificatePageDTO {
+    private List<CertificateDTO> certificates;
+    private Long nextCursor; // Pass back as cursor to fetch the next page, null on the last page
+    private boolean hasMore;
+
+    public CertificatePageDTO() {}
+
+    public CertificatePageDTO(List<CertificateDTO> certificates, Long nextCursor, boolean hasMore) {
+        this.certificates = certificates;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<CertificateDTO> getCertificates() { return certificates; }
+    public void setCertificates(List<CertificateDTO> certificates) { this.certificates = certificates; }
+
+    public Long getNextCursor() { return nextCursor; }
+    public void setNextCursor(Long nextCursor) { this.nextCursor = nextCursor; }
+
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
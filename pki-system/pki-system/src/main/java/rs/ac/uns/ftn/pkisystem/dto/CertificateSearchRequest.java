@@ -0,0 +1,52 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateStatus;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+
+import java.time.LocalDateTime;
+
+public class CertificateSearchRequest {
+    private CertificateType type;
+    private CertificateStatus status;
+    private Long issuerId;
+    private Long ownerId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime validFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime validTo;
+
+    private String serialPrefix;
+    private Long cursor; // Id of the last certificate on the previous page
+    private Integer limit;
+
+    // Getters and Setters
+    public CertificateType getType() { return type; }
+    public void setType(CertificateType type) { this.type = type; }
+
+    public CertificateStatus getStatus() { return status; }
+    public void setStatus(CertificateStatus status) { this.status = status; }
+
+    public Long getIssuerId() { return issuerId; }
+    public void setIssuerId(Long issuerId) { this.issuerId = issuerId; }
+
+    public Long getOwnerId() { return ownerId; }
+    public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+
+    public LocalDateTime getValidFrom() { return validFrom; }
+    public void setValidFrom(LocalDateTime validFrom) { this.validFrom = validFrom; }
+
+    public LocalDateTime getValidTo() { return validTo; }
+    public void setValidTo(LocalDateTime validTo) { this.validTo = validTo; }
+
+    public String getSerialPrefix() { return serialPrefix; }
+    public void setSerialPrefix(String serialPrefix) { this.serialPrefix = serialPrefix; }
+
+    public Long getCursor() { return cursor; }
+    public void setCursor(Long cursor) { this.cursor = cursor; }
+
+    public Integer getLimit() { return limit; }
+    public void setLimit(Integer limit) { this.limit = limit; }
+}
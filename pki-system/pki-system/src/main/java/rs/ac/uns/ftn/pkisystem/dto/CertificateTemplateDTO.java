@@ -0,0 +1,66 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
+
+import java.time.LocalDateTime;
+
+public class CertificateTemplateDTO {
+    private Long id;
+    private String name;
+    private Long issuerId;
+    private CertificateType certificateType;
+    private KeyAlgorithm keyAlgorithm;
+    private Integer maxValidityDays;
+    private String keyUsage;
+    private String extendedKeyUsage;
+    private Integer pathLengthConstraint;
+    private String subjectDnPattern;
+    private String sanPattern;
+    private Long ownerId;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Long getIssuerId() { return issuerId; }
+    public void setIssuerId(Long issuerId) { this.issuerId = issuerId; }
+
+    public CertificateType getCertificateType() { return certificateType; }
+    public void setCertificateType(CertificateType certificateType) { this.certificateType = certificateType; }
+
+    public KeyAlgorithm getKeyAlgorithm() { return keyAlgorithm; }
+    public void setKeyAlgorithm(KeyAlgorithm keyAlgorithm) { this.keyAlgorithm = keyAlgorithm; }
+
+    public Integer getMaxValidityDays() { return maxValidityDays; }
+    public void setMaxValidityDays(Integer maxValidityDays) { this.maxValidityDays = maxValidityDays; }
+
+    public String getKeyUsage() { return keyUsage; }
+    public void setKeyUsage(String keyUsage) { this.keyUsage = keyUsage; }
+
+    public String getExtendedKeyUsage() { return extendedKeyUsage; }
+    public void setExtendedKeyUsage(String extendedKeyUsage) { this.extendedKeyUsage = extendedKeyUsage; }
+
+    public Integer getPathLengthConstraint() { return pathLengthConstraint; }
+    public void setPathLengthConstraint(Integer pathLengthConstraint) { this.pathLengthConstraint = pathLengthConstraint; }
+
+    public String getSubjectDnPattern() { return subjectDnPattern; }
+    public void setSubjectDnPattern(String subjectDnPattern) { this.subjectDnPattern = subjectDnPattern; }
+
+    public String getSanPattern() { return sanPattern; }
+    public void setSanPattern(String sanPattern) { this.sanPattern = sanPattern; }
+
+    public Long getOwnerId() { return ownerId; }
+    public void setOwnerId(Long ownerId) { this.ownerId = ownerId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
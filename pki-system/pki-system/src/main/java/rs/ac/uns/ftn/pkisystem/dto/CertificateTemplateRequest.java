@@ -0,0 +1,61 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
+
+public class CertificateTemplateRequest {
+    @NotBlank(message = "Template name is required")
+    private String name;
+
+    @NotNull(message = "Issuer is required")
+    private Long issuerId;
+
+    @NotNull(message = "Certificate type is required")
+    private CertificateType certificateType;
+
+    private KeyAlgorithm keyAlgorithm = KeyAlgorithm.RSA_2048;
+
+    @NotNull(message = "Maximum validity is required")
+    @Min(value = 1, message = "Maximum validity must be at least one day")
+    private Integer maxValidityDays;
+
+    private String keyUsage;
+    private String extendedKeyUsage;
+    private Integer pathLengthConstraint;
+    private String subjectDnPattern;
+    private String sanPattern;
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Long getIssuerId() { return issuerId; }
+    public void setIssuerId(Long issuerId) { this.issuerId = issuerId; }
+
+    public CertificateType getCertificateType() { return certificateType; }
+    public void setCertificateType(CertificateType certificateType) { this.certificateType = certificateType; }
+
+    public KeyAlgorithm getKeyAlgorithm() { return keyAlgorithm; }
+    public void setKeyAlgorithm(KeyAlgorithm keyAlgorithm) { this.keyAlgorithm = keyAlgorithm; }
+
+    public Integer getMaxValidityDays() { return maxValidityDays; }
+    public void setMaxValidityDays(Integer maxValidityDays) { this.maxValidityDays = maxValidityDays; }
+
+    public String getKeyUsage() { return keyUsage; }
+    public void setKeyUsage(String keyUsage) { this.keyUsage = keyUsage; }
+
+    public String getExtendedKeyUsage() { return extendedKeyUsage; }
+    public void setExtendedKeyUsage(String extendedKeyUsage) { this.extendedKeyUsage = extendedKeyUsage; }
+
+    public Integer getPathLengthConstraint() { return pathLengthConstraint; }
+    public void setPathLengthConstraint(Integer pathLengthConstraint) { this.pathLengthConstraint = pathLengthConstraint; }
+
+    public String getSubjectDnPattern() { return subjectDnPattern; }
+    public void setSubjectDnPattern(String subjectDnPattern) { this.subjectDnPattern = subjectDnPattern; }
+
+    public String getSanPattern() { return sanPattern; }
+    public void setSanPattern(String sanPattern) { this.sanPattern = sanPattern; }
+}
@@ -4,7 +4,9 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Future;
 import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public class CreateCertificateRequest {
     @NotBlank(message = "Subject DN is required")
@@ -22,6 +24,13 @@ public class CreateCertificateRequest {
 
     private Long issuerId; // For intermediate and end-entity certificates
 
+    private KeyAlgorithm keyAlgorithm = KeyAlgorithm.RSA_2048;
+
+    private Long templateId; // Optional, the template fixes issuer, key algorithm and extensions
+
+    // DNS:example.com, IP:10.0.0.1, EMAIL:user@example.com or URI:https://...; no prefix means DNS
+    private List<String> subjectAlternativeNames;
+
     private String keyUsage;
     private String extendedKeyUsage;
     private boolean basicConstraintsCA;
@@ -47,6 +56,15 @@ public class CreateCertificateRequest {
     public Long getIssuerId() { return issuerId; }
     public void setIssuerId(Long issuerId) { this.issuerId = issuerId; }
 
+    public KeyAlgorithm getKeyAlgorithm() { return keyAlgorithm; }
+    public void setKeyAlgorithm(KeyAlgorithm keyAlgorithm) { this.keyAlgorithm = keyAlgorithm; }
+
+    public Long getTemplateId() { return templateId; }
+    public void setTemplateId(Long templateId) { this.templateId = templateId; }
+
+    public List<String> getSubjectAlternativeNames() { return subjectAlternativeNames; }
+    public void setSubjectAlternativeNames(List<String> subjectAlternativeNames) { this.subjectAlternativeNames = subjectAlternativeNames; }
+
     public String getKeyUsage() { return keyUsage; }
     public void setKeyUsage(String keyUsage) { this.keyUsage = keyUsage; }
 
@@ -0,0 +1,36 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+import rs.ac.uns.ftn.pkisystem.entity.IssuanceJobStatus;
+import java.time.LocalDateTime;
+
+public class IssuanceJobDTO {
+    private Long id;
+    private IssuanceJobStatus status;
+    private Long certificateId;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public IssuanceJobStatus getStatus() { return status; }
+    public void setStatus(IssuanceJobStatus status) { this.status = status; }
+
+    public Long getCertificateId() { return certificateId; }
+    public void setCertificateId(Long certificateId) { this.certificateId = certificateId; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
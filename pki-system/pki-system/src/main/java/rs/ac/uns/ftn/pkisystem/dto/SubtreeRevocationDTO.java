@@ -0,0 +1,20 @@
+package rs.ac.uns.ftn.pkisystem.dto;
+
+public class SubtreeRevocationDTO {
+    private Long certificateId;
+    private int revokedCount; // The certificate itself plus every active descendant
+
+    public SubtreeRevocationDTO() {}
+
+    public SubtreeRevocationDTO(Long certificateId, int revokedCount) {
+        this.certificateId = certificateId;
+        this.revokedCount = revokedCount;
+    }
+
+    // Getters and Setters
+    public Long getCertificateId() { return certificateId; }
+    public void setCertificateId(Long certificateId) { this.certificateId = certificateId; }
+
+    public int getRevokedCount() { return revokedCount; }
+    public void setRevokedCount(int revokedCount) { this.revokedCount = revokedCount; }
+}
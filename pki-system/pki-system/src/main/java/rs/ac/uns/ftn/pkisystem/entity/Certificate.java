@@ -3,13 +3,26 @@ package rs.ac.uns.ftn.pkisystem.entity;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 @Entity
-@Table(name = "certificates")
+@Table(name = "certificates", indexes = {
+        @Index(name = "idx_certificates_ancestor_path", columnList = "ancestor_path"),
+        // Filter column plus id, so filtered keyset pages are served straight from the index
+        @Index(name = "idx_certificates_status_id", columnList = "status, id"),
+        @Index(name = "idx_certificates_type_id", columnList = "type, id"),
+        @Index(name = "idx_certificates_issuer_id", columnList = "issuer_id, id"),
+        @Index(name = "idx_certificates_owner_id", columnList = "owner_id, id"),
+        @Index(name = "idx_certificates_valid_to", columnList = "validTo"),
+        // Expiry sweeper scans ACTIVE rows in validTo order
+        @Index(name = "idx_certificates_status_valid_to", columnList = "status, validTo"),
+        @Index(name = "idx_certificates_valid_from", columnList = "validFrom")
+})
 public class Certificate {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificates_seq")
+    @SequenceGenerator(name = "certificates_seq", sequenceName = "certificates_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -33,8 +46,11 @@ public class Certificate {
     @Enumerated(EnumType.STRING)
     private CertificateStatus status = CertificateStatus.ACTIVE;
 
+    @Column(name = "certificate_der", columnDefinition = "BLOB")
+    private byte[] certificateDer; // DER encoded certificate
+
     @Column(columnDefinition = "TEXT")
-    private String certificateData; // Base64 encoded certificate
+    private String certificateData; // Legacy Base64 copy, moved into certificate_der by CertificateStorageMigration
 
     @Column(name = "keystore_alias")
     private String keystoreAlias;
@@ -46,6 +62,10 @@ public class Certificate {
     @JoinColumn(name = "issuer_id")
     private Certificate issuer; // Parent certificate for chain
 
+    // Ids of every issuer above this certificate, root first, e.g. "/1/5/" ("/" for roots)
+    @Column(name = "ancestor_path", length = 512)
+    private String ancestorPath;
+
     @OneToMany(mappedBy = "issuer", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Certificate> issuedCertificates = new ArrayList<>();
 
@@ -59,6 +79,9 @@ public class Certificate {
     @Column(name = "revoked_at")
     private LocalDateTime revokedAt;
 
+    @Column(name = "expiry_notice_days")
+    private Integer expiryNoticeDays; // Most urgent expiring-soon notice already sent (30/7/1)
+
     @Column(updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -100,6 +123,9 @@ public class Certificate {
     public CertificateStatus getStatus() { return status; }
     public void setStatus(CertificateStatus status) { this.status = status; }
 
+    public byte[] getCertificateDer() { return certificateDer; }
+    public void setCertificateDer(byte[] certificateDer) { this.certificateDer = certificateDer; }
+
     public String getCertificateData() { return certificateData; }
     public void setCertificateData(String certificateData) { this.certificateData = certificateData; }
 
@@ -112,6 +138,9 @@ public class Certificate {
     public Certificate getIssuer() { return issuer; }
     public void setIssuer(Certificate issuer) { this.issuer = issuer; }
 
+    public String getAncestorPath() { return ancestorPath; }
+    public void setAncestorPath(String ancestorPath) { this.ancestorPath = ancestorPath; }
+
     public List<Certificate> getIssuedCertificates() { return issuedCertificates; }
     public void setIssuedCertificates(List<Certificate> issuedCertificates) { this.issuedCertificates = issuedCertificates; }
 
@@ -124,9 +153,20 @@ public class Certificate {
     public LocalDateTime getRevokedAt() { return revokedAt; }
     public void setRevokedAt(LocalDateTime revokedAt) { this.revokedAt = revokedAt; }
 
+    public Integer getExpiryNoticeDays() { return expiryNoticeDays; }
+    public void setExpiryNoticeDays(Integer expiryNoticeDays) { this.expiryNoticeDays = expiryNoticeDays; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    // DER bytes, whether or not this row has been migrated off the Base64 column yet
+    public byte[] getEncoded() {
+        if (certificateDer != null) {
+            return certificateDer;
+        }
+        return certificateData != null ? Base64.getDecoder().decode(certificateData) : null;
+    }
+
     public boolean isValid() {
         LocalDateTime now = LocalDateTime.now();
         return status == CertificateStatus.ACTIVE &&
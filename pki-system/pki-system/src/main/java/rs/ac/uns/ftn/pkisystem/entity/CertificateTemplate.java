@@ -0,0 +1,98 @@
+package rs.ac.uns.ftn.pkisystem.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "certificate_templates")
+public class CertificateTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificate_templates_seq")
+    @SequenceGenerator(name = "certificate_templates_seq", sequenceName = "certificate_templates_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "issuer_id", nullable = false)
+    private Certificate issuer; // CA that issues certificates from this template
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CertificateType certificateType; // INTERMEDIATE or END_ENTITY
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private KeyAlgorithm keyAlgorithm = KeyAlgorithm.RSA_2048;
+
+    @Column(nullable = false)
+    private Integer maxValidityDays;
+
+    private String keyUsage; // Comma separated, e.g. digitalSignature,keyEncipherment
+    private String extendedKeyUsage; // Comma separated, e.g. serverAuth,clientAuth
+    private Integer pathLengthConstraint; // Only for INTERMEDIATE templates
+
+    private String subjectDnPattern; // Regex the requested subject DN must match
+    private String sanPattern; // Regex every requested SAN value must match
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    private User owner;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    // Constructors
+    public CertificateTemplate() {}
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Certificate getIssuer() { return issuer; }
+    public void setIssuer(Certificate issuer) { this.issuer = issuer; }
+
+    public CertificateType getCertificateType() { return certificateType; }
+    public void setCertificateType(CertificateType certificateType) { this.certificateType = certificateType; }
+
+    public KeyAlgorithm getKeyAlgorithm() { return keyAlgorithm; }
+    public void setKeyAlgorithm(KeyAlgorithm keyAlgorithm) { this.keyAlgorithm = keyAlgorithm; }
+
+    public Integer getMaxValidityDays() { return maxValidityDays; }
+    public void setMaxValidityDays(Integer maxValidityDays) { this.maxValidityDays = maxValidityDays; }
+
+    public String getKeyUsage() { return keyUsage; }
+    public void setKeyUsage(String keyUsage) { this.keyUsage = keyUsage; }
+
+    public String getExtendedKeyUsage() { return extendedKeyUsage; }
+    public void setExtendedKeyUsage(String extendedKeyUsage) { this.extendedKeyUsage = extendedKeyUsage; }
+
+    public Integer getPathLengthConstraint() { return pathLengthConstraint; }
+    public void setPathLengthConstraint(Integer pathLengthConstraint) { this.pathLengthConstraint = pathLengthConstraint; }
+
+    public String getSubjectDnPattern() { return subjectDnPattern; }
+    public void setSubjectDnPattern(String subjectDnPattern) { this.subjectDnPattern = subjectDnPattern; }
+
+    public String getSanPattern() { return sanPattern; }
+    public void setSanPattern(String sanPattern) { this.sanPattern = sanPattern; }
+
+    public User getOwner() { return owner; }
+    public void setOwner(User owner) { this.owner = owner; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @PreUpdate
+    public void preUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
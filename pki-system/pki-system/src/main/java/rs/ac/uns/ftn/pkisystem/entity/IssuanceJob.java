@@ -0,0 +1,78 @@
+package rs.ac.uns.ftn.pkisystem.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "issuance_jobs", indexes = {
+        @Index(name = "idx_issuance_jobs_status", columnList = "status, id")
+})
+public class IssuanceJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "issuance_jobs_seq")
+    @SequenceGenerator(name = "issuance_jobs_seq", sequenceName = "issuance_jobs_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private IssuanceJobStatus status = IssuanceJobStatus.PENDING;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String requestData; // Serialized CreateCertificateRequest
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "requester_id", nullable = false)
+    private User requester;
+
+    @Column(name = "certificate_id")
+    private Long certificateId;
+
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+
+    // Constructors
+    public IssuanceJob() {}
+
+    public IssuanceJob(User requester, String requestData) {
+        this.requester = requester;
+        this.requestData = requestData;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public IssuanceJobStatus getStatus() { return status; }
+    public void setStatus(IssuanceJobStatus status) { this.status = status; }
+
+    public String getRequestData() { return requestData; }
+    public void setRequestData(String requestData) { this.requestData = requestData; }
+
+    public User getRequester() { return requester; }
+    public void setRequester(User requester) { this.requester = requester; }
+
+    public Long getCertificateId() { return certificateId; }
+    public void setCertificateId(Long certificateId) { this.certificateId = certificateId; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+
+    public boolean isFinished() {
+        return status == IssuanceJobStatus.COMPLETED || status == IssuanceJobStatus.FAILED;
+    }
+}
@@ -0,0 +1,8 @@
+package rs.ac.uns.ftn.pkisystem.entity;
+
+public enum IssuanceJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,86 @@
+package rs.ac.uns.ftn.pkisystem.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// EC key pair used to sign access tokens; the private half is stored wrapped so every node can sign with it,
+// the public half is published as a JWK
+@Entity
+@Table(name = "jwt_signing_keys", indexes = {
+        @Index(name = "idx_jwt_signing_keys_expires", columnList = "expiresAt")
+}, uniqueConstraints = {
+        // One key per activation slot, nodes rotating at the same moment can't both insert a successor
+        @UniqueConstraint(name = "uk_jwt_signing_keys_activates_at", columnNames = "activatesAt")
+})
+public class JwtSigningKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "jwt_signing_keys_seq")
+    @SequenceGenerator(name = "jwt_signing_keys_seq", sequenceName = "jwt_signing_keys_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private String kid;
+
+    @Column(nullable = false)
+    private String algorithm;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] publicKey; // SubjectPublicKeyInfo DER
+
+    @Column(columnDefinition = "TEXT")
+    private String privateKey; // PKCS#8, wrapped under the keystore master key
+
+    @Column(nullable = false)
+    private LocalDateTime activatesAt; // Published ahead of this so verifiers already know the key when it starts signing
+
+    @Column(nullable = false)
+    private LocalDateTime retiresAt; // No new tokens are signed with it after this
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt; // The last token it signed has expired, it can be unpublished
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Constructors
+    public JwtSigningKey() {}
+
+    public JwtSigningKey(String kid, String algorithm, byte[] publicKey, LocalDateTime activatesAt,
+                         LocalDateTime retiresAt, LocalDateTime expiresAt) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.publicKey = publicKey;
+        this.activatesAt = activatesAt;
+        this.retiresAt = retiresAt;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getKid() { return kid; }
+    public void setKid(String kid) { this.kid = kid; }
+
+    public String getAlgorithm() { return algorithm; }
+    public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+
+    public byte[] getPublicKey() { return publicKey; }
+    public void setPublicKey(byte[] publicKey) { this.publicKey = publicKey; }
+
+    public String getPrivateKey() { return privateKey; }
+    public void setPrivateKey(String privateKey) { this.privateKey = privateKey; }
+
+    public LocalDateTime getActivatesAt() { return activatesAt; }
+    public void setActivatesAt(LocalDateTime activatesAt) { this.activatesAt = activatesAt; }
+
+    public LocalDateTime getRetiresAt() { return retiresAt; }
+    public void setRetiresAt(LocalDateTime retiresAt) { this.retiresAt = retiresAt; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
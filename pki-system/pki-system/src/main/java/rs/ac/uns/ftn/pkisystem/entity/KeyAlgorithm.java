@@ -0,0 +1,44 @@
+package rs.ac.uns.ftn.pkisystem.entity;
+
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+
+public enum KeyAlgorithm {
+    RSA_2048("RSA", 2048, null),
+    RSA_3072("RSA", 3072, null),
+    RSA_4096("RSA", 4096, null),
+    EC_P256("EC", 256, "secp256r1"),
+    EC_P384("EC", 384, "secp384r1"),
+    ED25519("Ed25519", 255, null);
+
+    private final String algorithm;
+    private final int keySize;
+    private final String curve;
+
+    KeyAlgorithm(String algorithm, int keySize, String curve) {
+        this.algorithm = algorithm;
+        this.keySize = keySize;
+        this.curve = curve;
+    }
+
+    public String getAlgorithm() { return algorithm; }
+    public int getKeySize() { return keySize; }
+    public String getCurve() { return curve; }
+
+    // The signature algorithm is always dictated by the signing (issuer) key
+    public static String signatureAlgorithmFor(PublicKey issuerKey) {
+        switch (issuerKey.getAlgorithm()) {
+            case "RSA":
+                return "SHA256WithRSA";
+            case "EC":
+            case "ECDSA":
+                int fieldSize = ((ECPublicKey) issuerKey).getParams().getCurve().getField().getFieldSize();
+                return fieldSize > 256 ? "SHA384WithECDSA" : "SHA256WithECDSA";
+            case "Ed25519":
+            case "EdDSA":
+                return "Ed25519";
+            default:
+                throw new IllegalArgumentException("Unsupported issuer key algorithm: " + issuerKey.getAlgorithm());
+        }
+    }
+}
@@ -9,7 +9,8 @@ import java.util.List;
 @Table(name = "password_entries")
 public class PasswordEntry {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "password_entries_seq")
+    @SequenceGenerator(name = "password_entries_seq", sequenceName = "password_entries_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
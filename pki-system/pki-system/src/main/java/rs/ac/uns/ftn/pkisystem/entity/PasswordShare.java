@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "password_shares")
 public class PasswordShare {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "password_shares_seq")
+    @SequenceGenerator(name = "password_shares_seq", sequenceName = "password_shares_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,66 @@
+package rs.ac.uns.ftn.pkisystem.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Change feed of token revocations, polled by every node to keep its in-memory revocation set current
+@Entity
+@Table(name = "token_revocation_events", indexes = {
+        @Index(name = "idx_token_revocation_events_created", columnList = "createdAt"),
+        @Index(name = "idx_token_revocation_events_expires", columnList = "expiresAt")
+})
+public class TokenRevocationEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "token_revocation_events_seq")
+    @SequenceGenerator(name = "token_revocation_events_seq", sequenceName = "token_revocation_events_seq", allocationSize = 50)
+    private Long id;
+
+    private String tokenId; // Set when a single token was revoked
+
+    private Long userId; // Set when every token of the user was revoked
+
+    private LocalDateTime revokedBefore; // Tokens of userId issued up to this moment are revoked
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt; // After this every affected token has expired and the event can go
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    // Constructors
+    public TokenRevocationEvent() {}
+
+    public static TokenRevocationEvent forToken(String tokenId, LocalDateTime expiresAt) {
+        TokenRevocationEvent event = new TokenRevocationEvent();
+        event.setTokenId(tokenId);
+        event.setExpiresAt(expiresAt);
+        return event;
+    }
+
+    public static TokenRevocationEvent forUser(Long userId, LocalDateTime revokedBefore, LocalDateTime expiresAt) {
+        TokenRevocationEvent event = new TokenRevocationEvent();
+        event.setUserId(userId);
+        event.setRevokedBefore(revokedBefore);
+        event.setExpiresAt(expiresAt);
+        return event;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTokenId() { return tokenId; }
+    public void setTokenId(String tokenId) { this.tokenId = tokenId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public LocalDateTime getRevokedBefore() { return revokedBefore; }
+    public void setRevokedBefore(LocalDateTime revokedBefore) { this.revokedBefore = revokedBefore; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -7,7 +7,8 @@ import java.time.LocalDateTime;
 @Table(name = "user_tokens")
 public class UserToken {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_tokens_seq")
+    @SequenceGenerator(name = "user_tokens_seq", sequenceName = "user_tokens_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,30 @@
+package rs.ac.uns.ftn.pkisystem.event;
+
+import java.time.LocalDateTime;
+
+// Published by the expiry sweeper when a certificate crosses a notice threshold (30/7/1 days)
+public class CertificateExpiringEvent {
+    private final Long certificateId;
+    private final String serialNumber;
+    private final String subjectDN;
+    private final String ownerEmail;
+    private final LocalDateTime validTo;
+    private final int noticeDays;
+
+    public CertificateExpiringEvent(Long certificateId, String serialNumber, String subjectDN,
+                                    String ownerEmail, LocalDateTime validTo, int noticeDays) {
+        this.certificateId = certificateId;
+        this.serialNumber = serialNumber;
+        this.subjectDN = subjectDN;
+        this.ownerEmail = ownerEmail;
+        this.validTo = validTo;
+        this.noticeDays = noticeDays;
+    }
+
+    public Long getCertificateId() { return certificateId; }
+    public String getSerialNumber() { return serialNumber; }
+    public String getSubjectDN() { return subjectDN; }
+    public String getOwnerEmail() { return ownerEmail; }
+    public LocalDateTime getValidTo() { return validTo; }
+    public int getNoticeDays() { return noticeDays; }
+}
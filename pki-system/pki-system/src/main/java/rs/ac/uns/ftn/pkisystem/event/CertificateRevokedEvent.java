@@ -0,0 +1,27 @@
+package rs.ac.uns.ftn.pkisystem.event;
+
+import java.time.LocalDateTime;
+
+// Published inside the revoking transaction, listeners react once it commits
+public class CertificateRevokedEvent {
+    private final Long certificateId;
+    private final Long issuerId; // null for root certificates
+    private final String serialNumber;
+    private final LocalDateTime revokedAt;
+    private final String reason;
+
+    public CertificateRevokedEvent(Long certificateId, Long issuerId, String serialNumber,
+                                   LocalDateTime revokedAt, String reason) {
+        this.certificateId = certificateId;
+        this.issuerId = issuerId;
+        this.serialNumber = serialNumber;
+        this.revokedAt = revokedAt;
+        this.reason = reason;
+    }
+
+    public Long getCertificateId() { return certificateId; }
+    public Long getIssuerId() { return issuerId; }
+    public String getSerialNumber() { return serialNumber; }
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public String getReason() { return reason; }
+}
@@ -0,0 +1,20 @@
+package rs.ac.uns.ftn.pkisystem.event;
+
+import java.util.List;
+
+// Published inside the revoking transaction when a CA and everything beneath it is revoked at once
+public class CertificateSubtreeRevokedEvent {
+    private final Long certificateId;
+    private final List<Long> affectedIssuerIds; // Every CA whose CRL gained entries
+    private final int revokedCount;
+
+    public CertificateSubtreeRevokedEvent(Long certificateId, List<Long> affectedIssuerIds, int revokedCount) {
+        this.certificateId = certificateId;
+        this.affectedIssuerIds = affectedIssuerIds;
+        this.revokedCount = revokedCount;
+    }
+
+    public Long getCertificateId() { return certificateId; }
+    public List<Long> getAffectedIssuerIds() { return affectedIssuerIds; }
+    public int getRevokedCount() { return revokedCount; }
+}
@@ -0,0 +1,12 @@
+package rs.ac.uns.ftn.pkisystem.event;
+
+// Published when a template is updated or deleted, the compiled copy is dropped once the change commits
+public class CertificateTemplateChangedEvent {
+    private final Long templateId;
+
+    public CertificateTemplateChangedEvent(Long templateId) {
+        this.templateId = templateId;
+    }
+
+    public Long getTemplateId() { return templateId; }
+}
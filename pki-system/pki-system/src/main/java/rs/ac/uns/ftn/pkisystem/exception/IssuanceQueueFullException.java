@@ -0,0 +1,14 @@
+package rs.ac.uns.ftn.pkisystem.exception;
+
+public class IssuanceQueueFullException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public IssuanceQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
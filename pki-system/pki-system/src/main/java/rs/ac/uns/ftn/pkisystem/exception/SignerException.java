@@ -0,0 +1,11 @@
+package rs.ac.uns.ftn.pkisystem.exception;
+
+public class SignerException extends RuntimeException {
+    public SignerException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public SignerException(String message) {
+        super(message);
+    }
+}
@@ -1,28 +1,88 @@
 package rs.ac.uns.ftn.pkisystem.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import rs.ac.uns.ftn.pkisystem.entity.Certificate;
 import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
 import rs.ac.uns.ftn.pkisystem.entity.CertificateStatus;
 import rs.ac.uns.ftn.pkisystem.entity.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CertificateRepository extends JpaRepository<Certificate, Long> {
+public interface CertificateRepository extends JpaRepository<Certificate, Long>, JpaSpecificationExecutor<Certificate> {
     List<Certificate> findByOwner(User owner);
     List<Certificate> findByType(CertificateType type);
     List<Certificate> findByStatus(CertificateStatus status);
     Optional<Certificate> findBySerialNumber(String serialNumber);
+    Optional<Certificate> findByKeystoreAlias(String keystoreAlias);
+    List<Certificate> findByIssuerIdAndStatus(Long issuerId, CertificateStatus status);
+    boolean existsByOwnerIdAndIdIn(Long ownerId, Collection<Long> ids);
 
-    @Query("SELECT c FROM Certificate c WHERE c.owner = :owner OR c.issuer IN " +
-            "(SELECT cert FROM Certificate cert WHERE cert.owner = :owner)")
-    List<Certificate> findCertificatesAccessibleByUser(@Param("owner") User owner);
+    @Query("SELECT c FROM Certificate c LEFT JOIN FETCH c.issuer WHERE c.serialNumber = :serialNumber")
+    Optional<Certificate> findWithIssuerBySerialNumber(@Param("serialNumber") String serialNumber);
 
-    @Query("SELECT c FROM Certificate c WHERE c.type = 'ROOT' OR c.type = 'INTERMEDIATE'")
-    List<Certificate> findCACertificates();
-}
\ No newline at end of file
+    // List reads fetch the owner in the same query; the issuer id comes from the FK without loading the issuer
+    @EntityGraph(attributePaths = "owner")
+    @Query("SELECT c FROM Certificate c WHERE (c.type = 'ROOT' OR c.type = 'INTERMEDIATE') AND c.status = :status")
+    List<Certificate> findCACertificatesByStatus(@Param("status") CertificateStatus status);
+
+    // Expiry sweeper, both walk the (status, validTo) index
+    @Query("SELECT c.id FROM Certificate c WHERE c.status = 'ACTIVE' AND c.validTo < :now ORDER BY c.validTo")
+    List<Long> findExpiredActiveIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Certificate c SET c.status = 'EXPIRED' WHERE c.id IN :ids AND c.status = 'ACTIVE'")
+    int markExpired(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "owner")
+    @Query("SELECT c FROM Certificate c WHERE c.status = 'ACTIVE' AND c.validTo > :now AND c.validTo <= :until " +
+            "AND (c.expiryNoticeDays IS NULL OR c.expiryNoticeDays > :days) ORDER BY c.validTo")
+    List<Certificate> findExpiringWithoutNotice(@Param("now") LocalDateTime now, @Param("until") LocalDateTime until,
+                                                @Param("days") int days, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Certificate c SET c.expiryNoticeDays = :days WHERE c.id IN :ids")
+    int markExpiryNotice(@Param("ids") Collection<Long> ids, @Param("days") int days);
+
+    // Hands an undeliverable notice back to the sweeper; skipped if a later notice already replaced the marker
+    @Modifying
+    @Transactional
+    @Query("UPDATE Certificate c SET c.expiryNoticeDays = NULL WHERE c.id = :id AND c.expiryNoticeDays = :days")
+    int clearExpiryNotice(@Param("id") Long id, @Param("days") int days);
+
+    // Subtree = the certificate plus every row whose ancestor_path starts with its path, one indexed range
+    @Query("SELECT c.id FROM Certificate c WHERE (c.id = :id OR c.ancestorPath LIKE :pathPrefix) " +
+            "AND c.type <> 'END_ENTITY'")
+    List<Long> findSubtreeCaIds(@Param("id") Long id, @Param("pathPrefix") String pathPrefix);
+
+    @Modifying
+    @Query("UPDATE Certificate c SET c.status = 'REVOKED', c.revocationReason = :reason, c.revokedAt = :revokedAt " +
+            "WHERE (c.id = :id OR c.ancestorPath LIKE :pathPrefix) AND c.status = 'ACTIVE'")
+    int revokeSubtree(@Param("id") Long id, @Param("pathPrefix") String pathPrefix,
+                      @Param("reason") String reason, @Param("revokedAt") LocalDateTime revokedAt);
+
+    // Backfill for rows issued before ancestor_path existed, one hierarchy level per statement
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE certificates SET ancestor_path = '/' WHERE issuer_id IS NULL AND ancestor_path IS NULL",
+            nativeQuery = true)
+    int assignRootAncestorPaths();
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE certificates c JOIN certificates p ON c.issuer_id = p.id " +
+            "SET c.ancestor_path = CONCAT(p.ancestor_path, p.id, '/') " +
+            "WHERE c.ancestor_path IS NULL AND p.ancestor_path IS NOT NULL", nativeQuery = true)
+    int assignChildAncestorPaths();
+}
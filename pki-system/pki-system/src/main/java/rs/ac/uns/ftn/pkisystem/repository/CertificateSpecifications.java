@@ -0,0 +1,65 @@
+package rs.ac.uns.ftn.pkisystem.repository;
+
+import org.springframework.data.jpa.domain.Specification;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateStatus;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+
+import java.time.LocalDateTime;
+
+// Filters for the paginated certificate listing, each one maps onto an indexed column
+public final class CertificateSpecifications {
+
+    private CertificateSpecifications() {}
+
+    // Keyset cursor, rows after the last one the client has seen (ordered by id descending)
+    public static Specification<Certificate> idBefore(Long cursor) {
+        return (root, query, cb) -> cursor == null ? null : cb.lessThan(root.get("id"), cursor);
+    }
+
+    public static Specification<Certificate> hasType(CertificateType type) {
+        return (root, query, cb) -> type == null ? null : cb.equal(root.get("type"), type);
+    }
+
+    public static Specification<Certificate> hasStatus(CertificateStatus status) {
+        return (root, query, cb) -> status == null ? null : cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Certificate> hasIssuer(Long issuerId) {
+        return (root, query, cb) -> issuerId == null ? null : cb.equal(root.get("issuer").get("id"), issuerId);
+    }
+
+    public static Specification<Certificate> hasOwner(Long ownerId) {
+        return (root, query, cb) -> ownerId == null ? null : cb.equal(root.get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Certificate> validFromOnOrAfter(LocalDateTime validFrom) {
+        return (root, query, cb) -> validFrom == null ? null : cb.greaterThanOrEqualTo(root.get("validFrom"), validFrom);
+    }
+
+    public static Specification<Certificate> validToOnOrBefore(LocalDateTime validTo) {
+        return (root, query, cb) -> validTo == null ? null : cb.lessThanOrEqualTo(root.get("validTo"), validTo);
+    }
+
+    public static Specification<Certificate> serialNumberStartsWith(String prefix) {
+        return (root, query, cb) -> prefix == null || prefix.isBlank()
+                ? null
+                : cb.like(root.get("serialNumber"), escapeLike(prefix.trim()) + "%", '\\');
+    }
+
+    // Own certificates and those issued by the user's CAs
+    public static Specification<Certificate> accessibleBy(Long userId) {
+        return (root, query, cb) -> {
+            var subquery = query.subquery(Long.class);
+            var ca = subquery.from(Certificate.class);
+            subquery.select(ca.get("id")).where(cb.equal(ca.get("owner").get("id"), userId));
+            return cb.or(
+                    cb.equal(root.get("owner").get("id"), userId),
+                    root.get("issuer").get("id").in(subquery));
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,14 @@
+package rs.ac.uns.ftn.pkisystem.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateTemplate;
+
+import java.util.List;
+
+@Repository
+public interface CertificateTemplateRepository extends JpaRepository<CertificateTemplate, Long> {
+    List<CertificateTemplate> findByIssuerId(Long issuerId);
+    List<CertificateTemplate> findByOwnerId(Long ownerId);
+    boolean existsByName(String name);
+}
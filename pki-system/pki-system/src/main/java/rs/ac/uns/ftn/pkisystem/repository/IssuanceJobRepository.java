@@ -0,0 +1,47 @@
+package rs.ac.uns.ftn.pkisystem.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import rs.ac.uns.ftn.pkisystem.entity.IssuanceJob;
+import rs.ac.uns.ftn.pkisystem.entity.IssuanceJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IssuanceJobRepository extends JpaRepository<IssuanceJob, Long> {
+    long countByStatusIn(Collection<IssuanceJobStatus> statuses);
+
+    @Query("SELECT j.id FROM IssuanceJob j WHERE j.status = :status ORDER BY j.id")
+    List<Long> findIdsByStatus(@Param("status") IssuanceJobStatus status, Pageable pageable);
+
+    @Query("SELECT j.id FROM IssuanceJob j WHERE j.id IN :ids AND j.status IN ('COMPLETED', 'FAILED')")
+    List<Long> findFinishedIds(@Param("ids") Collection<Long> ids);
+
+    // Only one worker (on any node) can move a job out of PENDING
+    @Modifying
+    @Transactional
+    @Query("UPDATE IssuanceJob j SET j.status = 'RUNNING', j.startedAt = :now WHERE j.id = :id AND j.status = 'PENDING'")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Jobs whose worker died mid-issuance go back to the queue
+    @Modifying
+    @Transactional
+    @Query("UPDATE IssuanceJob j SET j.status = 'PENDING', j.startedAt = null WHERE j.status = 'RUNNING' AND j.startedAt < :before")
+    int requeueStale(@Param("before") LocalDateTime before);
+
+    // Only the run holding the current claim can finish the job; a stale run that was requeued gets 0
+    @Modifying
+    @Transactional
+    @Query("UPDATE IssuanceJob j SET j.status = :status, j.certificateId = :certificateId, j.errorMessage = :error, " +
+            "j.completedAt = :now WHERE j.id = :id AND j.status = 'RUNNING' AND j.startedAt = :claimedAt")
+    int finish(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt,
+               @Param("status") IssuanceJobStatus status, @Param("certificateId") Long certificateId,
+               @Param("error") String error, @Param("now") LocalDateTime now);
+}
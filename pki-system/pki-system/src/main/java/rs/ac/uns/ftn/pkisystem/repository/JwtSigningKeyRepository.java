@@ -0,0 +1,15 @@
+package rs.ac.uns.ftn.pkisystem.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import rs.ac.uns.ftn.pkisystem.entity.JwtSigningKey;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, Long> {
+    List<JwtSigningKey> findByExpiresAtAfter(LocalDateTime now);
+    Optional<JwtSigningKey> findByActivatesAt(LocalDateTime activatesAt);
+}
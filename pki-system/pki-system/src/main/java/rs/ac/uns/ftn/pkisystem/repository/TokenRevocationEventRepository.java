@@ -0,0 +1,23 @@
+package rs.ac.uns.ftn.pkisystem.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import rs.ac.uns.ftn.pkisystem.entity.TokenRevocationEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationEventRepository extends JpaRepository<TokenRevocationEvent, Long> {
+    List<TokenRevocationEvent> findByCreatedAtGreaterThanEqual(LocalDateTime since);
+    List<TokenRevocationEvent> findByExpiresAtAfter(LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TokenRevocationEvent e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
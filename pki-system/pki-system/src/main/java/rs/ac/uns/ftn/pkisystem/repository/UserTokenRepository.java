@@ -1,10 +1,13 @@
 package rs.ac.uns.ftn.pkisystem.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rs.ac.uns.ftn.pkisystem.entity.UserToken;
 import rs.ac.uns.ftn.pkisystem.entity.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +16,7 @@ public interface UserTokenRepository extends JpaRepository<UserToken, Long> {
     Optional<UserToken> findByTokenId(String tokenId);
     List<UserToken> findByUserAndRevokedFalse(User user);
     void deleteByTokenId(String tokenId);
+
+    @Query("SELECT t.tokenId, t.expiresAt FROM UserToken t WHERE t.revoked = true AND t.expiresAt > :now")
+    List<Object[]> findRevokedUnexpired(@Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package rs.ac.uns.ftn.pkisystem.security;
+
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+
+// What access checks need to know about the caller, available without loading the User entity
+public interface AuthenticatedUser {
+
+    Long getId();
+
+    String getEmail();
+
+    Role getRole();
+}
@@ -0,0 +1,72 @@
+package rs.ac.uns.ftn.pkisystem.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Principal built from verified token claims; the User entity is only loaded if a service asks for it
+public class JwtPrincipal implements UserDetails, AuthenticatedUser {
+
+    private final Long id;
+    private final String email;
+    private final Role role;
+    private final String firstName;
+    private final String lastName;
+    private final List<GrantedAuthority> authorities;
+    private final Supplier<Optional<User>> userLoader;
+
+    private Optional<User> user;
+
+    public JwtPrincipal(Long id, String email, Role role, String firstName, String lastName,
+                        Supplier<Optional<User>> userLoader) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+        this.userLoader = userLoader;
+    }
+
+    // Loaded at most once per request
+    public synchronized Optional<User> getUser() {
+        if (user == null) {
+            user = userLoader.get();
+        }
+        return user;
+    }
+
+    @Override
+    public Long getId() { return id; }
+
+    @Override
+    public String getEmail() { return email; }
+
+    @Override
+    public Role getRole() { return role; }
+
+    public String getFirstName() { return firstName; }
+    public String getLastName() { return lastName; }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+}
@@ -1,17 +1,22 @@
 package rs.ac.uns.ftn.pkisystem.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.repository.UserRepository;
 import rs.ac.uns.ftn.pkisystem.service.UserDetailsServiceImpl;
 import rs.ac.uns.ftn.pkisystem.service.UserTokenService;
 
@@ -29,34 +34,47 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private UserTokenService userTokenService;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    // Build the principal from token claims instead of loading the user on every request
+    @Value("${jwt.stateless-authentication:true}")
+    private boolean statelessAuthentication;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain chain) throws ServletException, IOException {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
-        String jti = null;
+        Claims claims = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(jwtToken);
-                jti = jwtUtil.getJtiFromToken(jwtToken);
+                // One signature check per request, everything below reads from these claims
+                claims = jwtUtil.parseToken(jwtToken);
             } catch (IllegalArgumentException e) {
                 logger.error("Unable to get JWT Token");
             } catch (ExpiredJwtException e) {
                 logger.error("JWT Token has expired");
+            } catch (JwtException e) {
+                logger.error("Invalid JWT Token");
             }
         }
 
+        String username = claims != null ? claims.getSubject() : null;
+        String jti = claims != null ? claims.getId() : null;
+
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // Tokens issued before the uid claim existed still go through the user lookup
+            UserDetails userDetails = statelessAuthentication && claims.get("uid") != null
+                    ? principalFromClaims(claims)
+                    : this.userDetailsService.loadUserByUsername(username);
 
             // Check if token is valid and active
-            if (jwtUtil.validateToken(jwtToken, userDetails) &&
-                    (jti == null || userTokenService.isTokenActive(jti))) {
+            if (jwtUtil.validateToken(claims, userDetails) &&
+                    (jti == null || userTokenService.isTokenActive(jti, userIdOf(userDetails), claims.getIssuedAt()))) {
 
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
@@ -72,4 +90,19 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         chain.doFilter(request, response);
     }
+
+    private Long userIdOf(UserDetails userDetails) {
+        return userDetails instanceof AuthenticatedUser ? ((AuthenticatedUser) userDetails).getId() : null;
+    }
+
+    private JwtPrincipal principalFromClaims(Claims claims) {
+        Long userId = claims.get("uid", Number.class).longValue();
+        return new JwtPrincipal(
+                userId,
+                claims.getSubject(),
+                Role.valueOf(claims.get("role", String.class)),
+                claims.get("firstName", String.class),
+                claims.get("lastName", String.class),
+                () -> userRepository.findById(userId));
+    }
 }
\ No newline at end of file
@@ -2,12 +2,17 @@ package rs.ac.uns.ftn.pkisystem.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import rs.ac.uns.ftn.pkisystem.entity.User;
+import rs.ac.uns.ftn.pkisystem.service.JwtKeyService;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Date;
@@ -25,12 +30,40 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // ES256 signs with the rotating keys published at /.well-known/jwks.json, HS512 with the shared secret
+    @Value("${jwt.signing.algorithm:ES256}")
+    private String signingAlgorithm;
+
+    // ISO-8601 instant of the switch to ES256; HS512 tokens issued before it stay valid until they expire.
+    // Left empty, HS512 tokens are rejected unless HS512 is the signing algorithm.
+    @Value("${jwt.legacy-hs512-cutover:}")
+    private String legacyHs512Cutover;
+
+    @Autowired
+    private JwtKeyService jwtKeyService;
+
+    // Both are immutable and thread-safe, built once instead of per parse
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private Instant legacyHs512Before;
+
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        legacyHs512Before = legacyHs512Cutover.isBlank() ? null : Instant.parse(legacyHs512Cutover.trim());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return verificationKeyFor(header, claims);
+                    }
+                })
+                .build();
     }
 
     public String generateToken(User user) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", user.getId());
         claims.put("role", user.getRole().name());
         claims.put("email", user.getEmail());
         claims.put("firstName", user.getFirstName());
@@ -46,16 +79,55 @@ public class JwtUtil {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setId(jti)
                 .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .setExpiration(expiryDate);
+
+        if (isHs512()) {
+            return builder.signWith(signingKey, SignatureAlgorithm.HS512).compact();
+        }
+
+        JwtKeyService.ActiveKey key = jwtKeyService.getSigningKey();
+        return builder.setHeaderParam(JwsHeader.KEY_ID, key.getKid())
+                .signWith(key.getPrivateKey(), SignatureAlgorithm.ES256)
                 .compact();
     }
 
+    // Picked by the token's own header, but only among the algorithms we issue
+    private Key verificationKeyFor(JwsHeader header, Claims claims) {
+        String algorithm = header.getAlgorithm();
+
+        if (SignatureAlgorithm.HS512.getValue().equals(algorithm)) {
+            if (!isHs512() && !isLegacyHs512(claims)) {
+                throw new UnsupportedJwtException("HS512 tokens are no longer accepted");
+            }
+            return signingKey;
+        }
+
+        if (SignatureAlgorithm.ES256.getValue().equals(algorithm)) {
+            Key key = jwtKeyService.getVerificationKey(header.getKeyId());
+            if (key == null) {
+                throw new UnsupportedJwtException("Unknown token signing key");
+            }
+            return key;
+        }
+
+        throw new UnsupportedJwtException("Unsupported token algorithm: " + algorithm);
+    }
+
+    // The signature isn't verified yet, but a forged iat gains nothing: the secret still has to match
+    private boolean isLegacyHs512(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        return legacyHs512Before != null && issuedAt != null && issuedAt.toInstant().isBefore(legacyHs512Before);
+    }
+
+    private boolean isHs512() {
+        return SignatureAlgorithm.HS512.getValue().equalsIgnoreCase(signingAlgorithm);
+    }
+
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
     }
@@ -73,12 +145,13 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    // Verifies the signature and expiry once; callers read every claim they need from the result
+    public Claims parseToken(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseToken(token);
     }
 
     public Boolean isTokenExpired(String token) {
@@ -87,8 +160,11 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(getAllClaimsFromToken(token), userDetails);
+    }
+
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
     public LocalDateTime getExpirationAsLocalDateTime(String token) {
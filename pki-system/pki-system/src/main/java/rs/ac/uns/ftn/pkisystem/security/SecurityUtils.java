@@ -2,34 +2,57 @@ package rs.ac.uns.ftn.pkisystem.security;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
 import rs.ac.uns.ftn.pkisystem.entity.User;
 
 import java.util.Optional;
 
 public class SecurityUtils {
 
+    // Loads the User entity if the request was authenticated from token claims alone
     public static Optional<User> getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Object principal = getPrincipal();
 
-        if (authentication == null || !authentication.isAuthenticated() ||
-                authentication.getPrincipal().equals("anonymousUser")) {
-            return Optional.empty();
+        if (principal instanceof User) {
+            return Optional.of((User) principal);
+        }
+
+        if (principal instanceof JwtPrincipal) {
+            return ((JwtPrincipal) principal).getUser();
         }
 
-        if (authentication.getPrincipal() instanceof User) {
-            return Optional.of((User) authentication.getPrincipal());
+        return Optional.empty();
+    }
+
+    // Id, email and role of the caller, never touches the database
+    public static Optional<AuthenticatedUser> getAuthenticatedUser() {
+        Object principal = getPrincipal();
+
+        if (principal instanceof AuthenticatedUser) {
+            return Optional.of((AuthenticatedUser) principal);
         }
 
         return Optional.empty();
     }
 
     public static String getCurrentUserEmail() {
-        return getCurrentUser().map(User::getEmail).orElse(null);
+        return getAuthenticatedUser().map(AuthenticatedUser::getEmail).orElse(null);
     }
 
     public static boolean isCurrentUserAdmin() {
-        return getCurrentUser()
-                .map(user -> user.getRole().name().equals("ADMIN"))
+        return getAuthenticatedUser()
+                .map(user -> user.getRole() == Role.ADMIN)
                 .orElse(false);
     }
-}
\ No newline at end of file
+
+    private static Object getPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication == null || !authentication.isAuthenticated() ||
+                authentication.getPrincipal().equals("anonymousUser")) {
+            return null;
+        }
+
+        return authentication.getPrincipal();
+    }
+}
@@ -7,7 +7,6 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import rs.ac.uns.ftn.pkisystem.entity.AuditLog;
-import rs.ac.uns.ftn.pkisystem.entity.User;
 import rs.ac.uns.ftn.pkisystem.repository.AuditLogRepository;
 import rs.ac.uns.ftn.pkisystem.security.SecurityUtils;
 
@@ -21,9 +20,9 @@ public class AuditService {
     private AuditLogRepository auditLogRepository;
 
     public void logEvent(String eventType, String description, String resourceType, Long resourceId) {
-        User currentUser = SecurityUtils.getCurrentUser().orElse(null);
-        String userEmail = currentUser != null ? currentUser.getEmail() : "anonymous";
-        logEvent(eventType, description, resourceType, resourceId, userEmail);
+        // Read from the principal, so auditing never loads the User entity
+        String userEmail = SecurityUtils.getCurrentUserEmail();
+        logEvent(eventType, description, resourceType, resourceId, userEmail != null ? userEmail : "anonymous");
     }
 
     public void logEvent(String eventType, String description, String resourceType, Long resourceId, String userEmail) {
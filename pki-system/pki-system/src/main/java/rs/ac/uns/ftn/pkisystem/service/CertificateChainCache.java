@@ -0,0 +1,126 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.event.CertificateRevokedEvent;
+import rs.ac.uns.ftn.pkisystem.event.CertificateSubtreeRevokedEvent;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Issuer chains (issuer up to the root) assembled once per CA, so a leaf's bundle is its own DER plus a cached list
+@Service
+public class CertificateChainCache {
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateHierarchyService certificateHierarchyService;
+
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
+
+    @Value("${pki.chain.cache.max-entries:1024}")
+    private int maxEntries;
+
+    private final Map<Long, IssuerChain> chains = new ConcurrentHashMap<>();
+
+    // DER encodings of the certificate and every issuer above it, leaf first
+    public List<byte[]> getChain(Certificate certificate) {
+        List<byte[]> chain = new ArrayList<>();
+        chain.add(certificate.getEncoded());
+
+        Long issuerId = issuerIdOf(certificate);
+        if (issuerId != null) {
+            chain.addAll(getIssuerChain(issuerId, certificate).certificates);
+        }
+        return chain;
+    }
+
+    // Same chain as parsed certificates, for bundles that need the ASN.1 structures (PKCS#7)
+    public List<X509CertificateHolder> getParsedChain(Certificate certificate) {
+        List<X509CertificateHolder> chain = new ArrayList<>();
+        chain.add(parsedCertificateCache.getHolder(certificate));
+
+        Long issuerId = issuerIdOf(certificate);
+        if (issuerId != null) {
+            chain.addAll(getIssuerChain(issuerId, certificate).holders);
+        }
+        return chain;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        invalidate(event.getCertificateId());
+    }
+
+    // Chains below the subtree root all contain it, so the same check covers the whole subtree
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCertificateSubtreeRevoked(CertificateSubtreeRevokedEvent event) {
+        invalidate(event.getCertificateId());
+    }
+
+    // Drops every cached chain that contains the certificate
+    public void invalidate(Long certificateId) {
+        chains.values().removeIf(chain -> chain.certificateIds.contains(certificateId));
+    }
+
+    private IssuerChain getIssuerChain(Long issuerId, Certificate leaf) {
+        IssuerChain cached = chains.get(issuerId);
+        if (cached != null) {
+            return cached;
+        }
+
+        IssuerChain chain = loadIssuerChain(issuerId, leaf);
+        if (chains.size() >= maxEntries) {
+            // Over budget, start over rather than tracking recency on the hot path
+            chains.clear();
+        }
+        chains.put(issuerId, chain);
+        return chain;
+    }
+
+    private IssuerChain loadIssuerChain(Long issuerId, Certificate leaf) {
+        // The leaf's ancestor ids are exactly the issuer chain, root first
+        List<Long> ids = certificateHierarchyService.ancestorIds(leaf);
+        Map<Long, Certificate> issuers = certificateRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Certificate::getId, issuer -> issuer));
+
+        List<byte[]> certificates = new ArrayList<>();
+        List<X509CertificateHolder> holders = new ArrayList<>();
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            Certificate issuer = issuers.get(ids.get(i));
+            if (issuer != null) {
+                certificates.add(issuer.getEncoded());
+                holders.add(parsedCertificateCache.getHolder(issuer));
+            }
+        }
+        return new IssuerChain(new HashSet<>(ids), Collections.unmodifiableList(certificates),
+                Collections.unmodifiableList(holders));
+    }
+
+    private Long issuerIdOf(Certificate certificate) {
+        List<Long> ancestorIds = certificateHierarchyService.ancestorIds(certificate);
+        return ancestorIds.isEmpty() ? null : ancestorIds.get(ancestorIds.size() - 1);
+    }
+
+    private static class IssuerChain {
+        private final Set<Long> certificateIds;
+        private final List<byte[]> certificates;
+        private final List<X509CertificateHolder> holders;
+
+        IssuerChain(Set<Long> certificateIds, List<byte[]> certificates, List<X509CertificateHolder> holders) {
+            this.certificateIds = certificateIds;
+            this.certificates = certificates;
+            this.holders = holders;
+        }
+    }
+}
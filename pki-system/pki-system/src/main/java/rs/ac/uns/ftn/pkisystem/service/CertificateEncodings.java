@@ -0,0 +1,36 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSAbsentContent;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.util.CollectionStore;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+// PEM and PKCS#7 renderings of DER certificates, leaf first
+final class CertificateEncodings {
+
+    private static final Base64.Encoder PEM_ENCODER = Base64.getMimeEncoder(64, new byte[]{'\n'});
+
+    private CertificateEncodings() {}
+
+    static byte[] toPem(List<byte[]> certificates) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] der : certificates) {
+            out.writeBytes("-----BEGIN CERTIFICATE-----\n".getBytes(StandardCharsets.US_ASCII));
+            out.writeBytes(PEM_ENCODER.encode(der));
+            out.writeBytes("\n-----END CERTIFICATE-----\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        return out.toByteArray();
+    }
+
+    // Degenerate SignedData holding only certificates, the usual .p7b chain bundle
+    static byte[] toPkcs7(List<X509CertificateHolder> holders) throws Exception {
+        CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+        generator.addCertificates(new CollectionStore<>(holders));
+        return generator.generate(new CMSAbsentContent()).getEncoded();
+    }
+}
@@ -0,0 +1,109 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rs.ac.uns.ftn.pkisystem.event.CertificateExpiringEvent;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Emails certificate owners when the sweeper reports an upcoming expiry. Sends run on a mail thread with retries;
+// a notice that still can't be delivered gets its marker cleared so the next sweep announces it again.
+@Service
+public class CertificateExpiryNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(CertificateExpiryNotifier.class);
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Value("${pki.expiry.mail.max-attempts:5}")
+    private int maxAttempts;
+
+    // Doubles after every failed attempt
+    @Value("${pki.expiry.mail.retry-delay-ms:60000}")
+    private long retryDelayMs;
+
+    private ScheduledExecutorService mailExecutor;
+
+    // Queued or waiting for a retry, handed back to the sweeper if the application stops first
+    private final Set<CertificateExpiringEvent> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        mailExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-mail");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        mailExecutor.shutdownNow();
+        for (CertificateExpiringEvent event : pending) {
+            release(event);
+        }
+    }
+
+    // Only queues the send, SMTP never runs on the sweeper's thread
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCertificateExpiring(CertificateExpiringEvent event) {
+        if (event.getOwnerEmail() == null) {
+            return;
+        }
+
+        pending.add(event);
+        schedule(event, 1, 0);
+    }
+
+    private void send(CertificateExpiringEvent event, int attempt) {
+        try {
+            emailService.sendCertificateExpiringEmail(event.getOwnerEmail(), event.getSubjectDN(),
+                    event.getSerialNumber(), event.getValidTo(), event.getNoticeDays());
+            pending.remove(event);
+        } catch (Exception e) {
+            if (attempt < maxAttempts) {
+                log.warn("Expiry notice for certificate {} failed on attempt {}: {}",
+                        event.getSerialNumber(), attempt, e.getMessage());
+                schedule(event, attempt + 1, retryDelayMs << (attempt - 1));
+            } else {
+                log.error("Giving up on expiry notice for certificate {} after {} attempts",
+                        event.getSerialNumber(), attempt, e);
+                pending.remove(event);
+                release(event);
+            }
+        }
+    }
+
+    private void schedule(CertificateExpiringEvent event, int attempt, long delayMs) {
+        try {
+            mailExecutor.schedule(() -> send(event, attempt), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, shutdown() releases whatever is still pending
+        }
+    }
+
+    private void release(CertificateExpiringEvent event) {
+        try {
+            certificateRepository.clearExpiryNotice(event.getCertificateId(), event.getNoticeDays());
+        } catch (Exception e) {
+            log.error("Could not release expiry notice for certificate {}", event.getSerialNumber(), e);
+        }
+    }
+}
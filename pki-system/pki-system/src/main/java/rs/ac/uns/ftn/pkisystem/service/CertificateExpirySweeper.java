@@ -0,0 +1,102 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.event.CertificateExpiringEvent;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Moves expired certificates to EXPIRED and announces upcoming expiries, walking the (status, validTo) index
+@Service
+public class CertificateExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(CertificateExpirySweeper.class);
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${pki.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${pki.expiry.notice-days:30,7,1}")
+    private List<Integer> noticeDays;
+
+    @Scheduled(fixedDelayString = "${pki.expiry.sweep-interval-ms:300000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+
+        try {
+            int expired = expireCertificates(now);
+            if (expired > 0) {
+                log.info("Marked {} certificates as expired", expired);
+            }
+
+            // Most urgent threshold first, so a certificate already inside 7 days never gets the 30 day notice too
+            List<Integer> thresholds = new ArrayList<>(noticeDays);
+            thresholds.sort(null);
+            for (int days : thresholds) {
+                announceExpiring(now, days);
+            }
+        } catch (Exception e) {
+            // Nothing is lost, the next run resumes from the index
+            log.error("Certificate expiry sweep failed", e);
+        }
+    }
+
+    private int expireCertificates(LocalDateTime now) {
+        int total = 0;
+        int updated;
+        do {
+            // Each batch is its own short transaction so row locks are held briefly
+            updated = transactionTemplate.execute(status -> {
+                List<Long> ids = certificateRepository.findExpiredActiveIds(now, PageRequest.of(0, batchSize));
+                return ids.isEmpty() ? 0 : certificateRepository.markExpired(ids);
+            });
+            total += updated;
+        } while (updated == batchSize);
+        return total;
+    }
+
+    private void announceExpiring(LocalDateTime now, int days) {
+        int found;
+        do {
+            found = transactionTemplate.execute(status -> {
+                List<Certificate> expiring = certificateRepository.findExpiringWithoutNotice(
+                        now, now.plusDays(days), days, PageRequest.of(0, batchSize));
+                if (expiring.isEmpty()) {
+                    return 0;
+                }
+
+                certificateRepository.markExpiryNotice(
+                        expiring.stream().map(Certificate::getId).collect(Collectors.toList()), days);
+
+                // Listeners run after commit, so a notice is never sent for a marker that rolled back
+                for (Certificate certificate : expiring) {
+                    eventPublisher.publishEvent(new CertificateExpiringEvent(
+                            certificate.getId(), certificate.getSerialNumber(), certificate.getSubjectDN(),
+                            certificate.getOwner() != null ? certificate.getOwner().getEmail() : null,
+                            certificate.getValidTo(), days));
+                }
+                return expiring.size();
+            });
+        } while (found == batchSize);
+    }
+}
@@ -0,0 +1,83 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Chain queries over the materialized ancestor_path column instead of walking issuers one SELECT at a time
+@Service
+public class CertificateHierarchyService {
+
+    private static final Logger log = LoggerFactory.getLogger(CertificateHierarchyService.class);
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    // The backfill statements are MySQL UPDATE ... JOINs
+    @Value("${pki.migration.ancestor-path.enabled:true}")
+    private boolean backfillEnabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAncestorPaths() {
+        if (!backfillEnabled) {
+            return;
+        }
+
+        int updated = certificateRepository.assignRootAncestorPaths();
+        int level;
+        do {
+            level = certificateRepository.assignChildAncestorPaths();
+            updated += level;
+        } while (level > 0);
+
+        if (updated > 0) {
+            log.info("Assigned ancestor paths to {} certificates", updated);
+        }
+    }
+
+    // ancestor_path for a certificate signed by this issuer
+    public String pathBelow(Certificate issuer) {
+        return ancestorPathOf(issuer) + issuer.getId() + "/";
+    }
+
+    // Whether the user owns the certificate or any CA above it, in a single indexed lookup
+    public boolean isInUserChain(Long userId, Certificate certificate) {
+        List<Long> chain = ancestorIds(certificate);
+        chain.add(certificate.getId());
+        return certificateRepository.existsByOwnerIdAndIdIn(userId, chain);
+    }
+
+    public List<Long> ancestorIds(Certificate certificate) {
+        List<Long> ids = new ArrayList<>();
+        for (String id : ancestorPathOf(certificate).split("/")) {
+            if (!id.isEmpty()) {
+                ids.add(Long.valueOf(id));
+            }
+        }
+        return ids;
+    }
+
+    private String ancestorPathOf(Certificate certificate) {
+        if (certificate.getAncestorPath() != null) {
+            return certificate.getAncestorPath();
+        }
+
+        // Not backfilled yet, derive it from the issuer chain
+        StringBuilder path = new StringBuilder("/");
+        Certificate issuer = certificate.getIssuer();
+        while (issuer != null) {
+            path.insert(0, "/" + issuer.getId());
+            issuer = issuer.getIssuer();
+        }
+        return path.toString();
+    }
+}
@@ -11,18 +11,37 @@ import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
 import org.bouncycastle.pkcs.PKCS10CertificationRequest;
 import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.ac.uns.ftn.pkisystem.dto.BatchCertificateResult;
+import rs.ac.uns.ftn.pkisystem.dto.BatchCreateCertificateRequest;
 import rs.ac.uns.ftn.pkisystem.dto.CertificateDTO;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateFormat;
+import rs.ac.uns.ftn.pkisystem.dto.CertificatePageDTO;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateSearchRequest;
 import rs.ac.uns.ftn.pkisystem.dto.CreateCertificateRequest;
 import rs.ac.uns.ftn.pkisystem.dto.RevokeCertificateRequest;
+import rs.ac.uns.ftn.pkisystem.dto.SubtreeRevocationDTO;
 import rs.ac.uns.ftn.pkisystem.entity.*;
 import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.event.CertificateRevokedEvent;
+import rs.ac.uns.ftn.pkisystem.event.CertificateSubtreeRevokedEvent;
 import rs.ac.uns.ftn.pkisystem.exception.ResourceNotFoundException;
 import rs.ac.uns.ftn.pkisystem.exception.CertificateGenerationException;
 import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateSpecifications;
+import rs.ac.uns.ftn.pkisystem.security.AuthenticatedUser;
 import rs.ac.uns.ftn.pkisystem.security.SecurityUtils;
+import rs.ac.uns.ftn.pkisystem.signer.SigningService;
 
 import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
@@ -30,10 +49,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.security.*;
+import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -56,13 +78,71 @@ public class CertificateService {
     @Autowired
     private KeystoreService keystoreService;
 
+    @Autowired
+    private IssuerKeyCache issuerKeyCache;
+
+    @Autowired
+    private SigningService signingService;
+
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
+
+    @Autowired
+    private KeyPairPool keyPairPool;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CertificateHierarchyService certificateHierarchyService;
+
+    @Autowired
+    private CertificateChainCache certificateChainCache;
+
+    @Autowired
+    private CertificateTemplateService certificateTemplateService;
+
+    @Value("${pki.issuance.batch.threads:4}")
+    private int batchThreads;
+
+    @Value("${pki.certificates.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${pki.certificates.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${pki.issuance.batch.chunk-size:200}")
+    private int batchChunkSize;
+
     private final SecureRandom secureRandom = new SecureRandom();
 
+    // Bounded pool for batch signing; when full, the submitting thread signs the item itself
+    private ExecutorService batchSigningExecutor;
+
+    @PostConstruct
+    public void init() {
+        batchSigningExecutor = new ThreadPoolExecutor(batchThreads, batchThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchThreads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchSigningExecutor.shutdownNow();
+    }
+
     public CertificateDTO createCertificate(CreateCertificateRequest request) {
         try {
             User currentUser = SecurityUtils.getCurrentUser()
                     .orElseThrow(() -> new SecurityException("User not authenticated"));
 
+            CompiledTemplate template = templateFor(request);
+            if (template != null) {
+                template.applyTo(request);
+            }
+
             Certificate certificate;
 
             switch (request.getType()) {
@@ -91,11 +171,134 @@ public class CertificateService {
         }
     }
 
+    // Validates the shared issuer once, before any result is streamed back
+    @Transactional(readOnly = true)
+    public BatchIssuance startCertificateBatch(BatchCreateCertificateRequest request) {
+        User currentUser = SecurityUtils.getCurrentUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        Certificate issuerCert = loadIssuer(request.getIssuerId());
+
+        return new BatchIssuance(currentUser, issuerCert, request.getCertificates());
+    }
+
+    // Each chunk is prepared in parallel, signed in a single signer call and committed on its own,
+    // so one bad item never rolls back the batch
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void issueCertificateBatch(BatchIssuance batch, Consumer<BatchCertificateResult> results) {
+        List<CreateCertificateRequest> items = batch.items;
+
+        for (int start = 0; start < items.size(); start += batchChunkSize) {
+            int end = Math.min(start + batchChunkSize, items.size());
+
+            List<Future<PreparedCertificate>> futures = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                CreateCertificateRequest item = items.get(i);
+                futures.add(batchSigningExecutor.submit(() -> prepareBatchItem(batch, item)));
+            }
+
+            List<Integer> preparedIndexes = new ArrayList<>();
+            List<PreparedCertificate> prepared = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                try {
+                    prepared.add(futures.get(i - start).get());
+                    preparedIndexes.add(i);
+                } catch (ExecutionException e) {
+                    results.accept(BatchCertificateResult.error(i, e.getCause().getMessage()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CertificateGenerationException("Batch issuance interrupted", e);
+                }
+            }
+
+            List<IssuedCertificate> signed = signBatchChunk(batch, prepared, preparedIndexes, results);
+            persistBatchChunk(batch, signed, preparedIndexes, results);
+        }
+    }
+
+    private List<IssuedCertificate> signBatchChunk(BatchIssuance batch, List<PreparedCertificate> prepared,
+                                                   List<Integer> indexes, Consumer<BatchCertificateResult> results) {
+        if (prepared.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            List<X509CertificateHolder> holders = signingService.signBatch(batch.issuer,
+                    prepared.stream().map(item -> item.builder).collect(Collectors.toList()));
+
+            List<IssuedCertificate> signed = new ArrayList<>(prepared.size());
+            for (int i = 0; i < prepared.size(); i++) {
+                signed.add(prepared.get(i).complete(holders.get(i)));
+            }
+            return signed;
+        } catch (Exception e) {
+            for (Integer index : indexes) {
+                results.accept(BatchCertificateResult.error(index, "Failed to sign certificate: " + e.getMessage()));
+            }
+            return List.of();
+        }
+    }
+
+    private PreparedCertificate prepareBatchItem(BatchIssuance batch, CreateCertificateRequest item) throws Exception {
+        item.setIssuerId(batch.issuer.getId());
+
+        CompiledTemplate template = templateFor(item);
+        if (template != null) {
+            template.applyTo(item);
+        }
+
+        switch (item.getType()) {
+            case INTERMEDIATE:
+                return prepareIntermediateCertificate(item, batch.owner, batch.issuer);
+            case END_ENTITY:
+                return prepareEndEntityCertificate(item, batch.owner, batch.issuer);
+            default:
+                throw new IllegalArgumentException("Only intermediate and end-entity certificates can be issued in a batch");
+        }
+    }
+
+    private void persistBatchChunk(BatchIssuance batch, List<IssuedCertificate> signed, List<Integer> indexes,
+                                   Consumer<BatchCertificateResult> results) {
+        if (signed.isEmpty()) {
+            return;
+        }
+
+        List<Certificate> certificates;
+        try {
+            // Keystore first, then all rows and a single audit record in one transaction
+            Map<String, X509Certificate> endEntities = new LinkedHashMap<>();
+            for (IssuedCertificate issued : signed) {
+                if (issued.keyPair != null) {
+                    storeInKeystore(issued);
+                } else {
+                    endEntities.put(issued.certificate.getKeystoreAlias(), issued.x509Certificate);
+                }
+            }
+            keystoreService.storeCertificates(endEntities);
+
+            certificates = transactionTemplate.execute(status -> {
+                List<Certificate> saved = certificateRepository.saveAll(
+                        signed.stream().map(issued -> issued.certificate).collect(Collectors.toList()));
+                auditService.logEvent("CERTIFICATE_BATCH_CREATED",
+                        saved.size() + " certificates created under issuer: " + batch.issuer.getSerialNumber(),
+                        "CERTIFICATE", batch.issuer.getId());
+                return saved;
+            });
+        } catch (Exception e) {
+            for (Integer index : indexes) {
+                results.accept(BatchCertificateResult.error(index, "Failed to store certificate: " + e.getMessage()));
+            }
+            return;
+        }
+
+        for (int i = 0; i < certificates.size(); i++) {
+            results.accept(BatchCertificateResult.success(indexes.get(i), convertToDTO(certificates.get(i))));
+        }
+    }
+
     private Certificate createRootCertificate(CreateCertificateRequest request, User owner) throws Exception {
         // Generate key pair
-        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
-        keyGen.initialize(2048);
-        KeyPair keyPair = keyGen.generateKeyPair();
+        KeyPair keyPair = keyPairPool.take(keyAlgorithmFor(request));
 
         // Create certificate
         X500Name subject = new X500Name(request.getSubjectDN());
@@ -117,7 +320,8 @@ public class CertificateService {
                 new SubjectKeyIdentifier(keyPair.getPublic().getEncoded()));
 
         // Self-sign the certificate
-        ContentSigner signer = new JcaContentSignerBuilder("SHA256WithRSA").build(keyPair.getPrivate());
+        ContentSigner signer = new JcaContentSignerBuilder(KeyAlgorithm.signatureAlgorithmFor(keyPair.getPublic()))
+                .build(keyPair.getPrivate());
         X509CertificateHolder certHolder = certBuilder.build(signer);
         X509Certificate x509Cert = new JcaX509CertificateConverter().getCertificate(certHolder);
 
@@ -136,7 +340,8 @@ public class CertificateService {
         );
 
         certificate.setOwner(owner);
-        certificate.setCertificateData(Base64.getEncoder().encodeToString(x509Cert.getEncoded()));
+        certificate.setAncestorPath("/");
+        certificate.setCertificateDer(x509Cert.getEncoded());
         certificate.setKeystoreAlias(alias);
         certificate.setKeystorePassword(keystorePassword);
 
@@ -144,22 +349,18 @@ public class CertificateService {
     }
 
     private Certificate createIntermediateCertificate(CreateCertificateRequest request, User owner) throws Exception {
-        // Get issuer certificate
-        Certificate issuerCert = certificateRepository.findById(request.getIssuerId())
-                .orElseThrow(() -> new ResourceNotFoundException("Issuer certificate not found"));
-
-        if (!issuerCert.isValid()) {
-            throw new IllegalArgumentException("Issuer certificate is not valid");
-        }
+        Certificate issuerCert = loadIssuer(request.getIssuerId());
 
-        // Load issuer's private key
-        KeyPair issuerKeyPair = keystoreService.loadKeyPair(issuerCert.getKeystoreAlias(),
-                issuerCert.getKeystorePassword());
+        PreparedCertificate prepared = prepareIntermediateCertificate(request, owner, issuerCert);
+        IssuedCertificate issued = prepared.complete(signingService.sign(issuerCert, prepared.builder));
+        storeInKeystore(issued);
+        return issued.certificate;
+    }
 
+    private PreparedCertificate prepareIntermediateCertificate(CreateCertificateRequest request, User owner,
+                                                               Certificate issuerCert) throws Exception {
         // Generate key pair for new certificate
-        KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
-        keyGen.initialize(2048);
-        KeyPair keyPair = keyGen.generateKeyPair();
+        KeyPair keyPair = keyPairPool.take(keyAlgorithmFor(request));
 
         // Create certificate
         X500Name issuer = new X500Name(issuerCert.getSubjectDN());
@@ -171,26 +372,26 @@ public class CertificateService {
         X509v3CertificateBuilder certBuilder = new JcaX509v3CertificateBuilder(
                 issuer, serialNumber, validFrom, validTo, subject, keyPair.getPublic());
 
-        // Add extensions for Intermediate CA
-        certBuilder.addExtension(Extension.keyUsage, true,
-                new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign | KeyUsage.digitalSignature));
-
-        BasicConstraints basicConstraints = request.getPathLengthConstraint() != null ?
-                new BasicConstraints(request.getPathLengthConstraint()) :
-                new BasicConstraints(true);
-        certBuilder.addExtension(Extension.basicConstraints, true, basicConstraints);
+        CompiledTemplate template = templateFor(request);
+        if (template != null) {
+            // Pre-encoded extensions shared by every certificate issued from the template
+            template.addExtensions(certBuilder);
+        } else {
+            // Add extensions for Intermediate CA
+            certBuilder.addExtension(Extension.keyUsage, true,
+                    new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign | KeyUsage.digitalSignature));
+
+            BasicConstraints basicConstraints = request.getPathLengthConstraint() != null ?
+                    new BasicConstraints(request.getPathLengthConstraint()) :
+                    new BasicConstraints(true);
+            certBuilder.addExtension(Extension.basicConstraints, true, basicConstraints);
+        }
 
         certBuilder.addExtension(Extension.subjectKeyIdentifier, false,
                 new SubjectKeyIdentifier(keyPair.getPublic().getEncoded()));
+        addSubjectAlternativeNames(certBuilder, request);
 
-        // Sign with issuer's private key
-        ContentSigner signer = new JcaContentSignerBuilder("SHA256WithRSA").build(issuerKeyPair.getPrivate());
-        X509CertificateHolder certHolder = certBuilder.build(signer);
-        X509Certificate x509Cert = new JcaX509CertificateConverter().getCertificate(certHolder);
-
-        // Store in keystore
         String alias = "intermediate_" + serialNumber.toString();
-        String keystorePassword = keystoreService.storeKeyPair(alias, keyPair, x509Cert);
 
         // Create certificate entity
         Certificate certificate = new Certificate(
@@ -204,26 +405,24 @@ public class CertificateService {
 
         certificate.setOwner(owner);
         certificate.setIssuer(issuerCert);
-        certificate.setCertificateData(Base64.getEncoder().encodeToString(x509Cert.getEncoded()));
+        certificate.setAncestorPath(certificateHierarchyService.pathBelow(issuerCert));
         certificate.setKeystoreAlias(alias);
-        certificate.setKeystorePassword(keystorePassword);
 
-        return certificate;
+        // Signed later by the issuer's signer backend
+        return new PreparedCertificate(certBuilder, certificate, keyPair);
     }
 
     private Certificate createEndEntityCertificate(CreateCertificateRequest request, User owner) throws Exception {
-        // Get issuer certificate
-        Certificate issuerCert = certificateRepository.findById(request.getIssuerId())
-                .orElseThrow(() -> new ResourceNotFoundException("Issuer certificate not found"));
+        Certificate issuerCert = loadIssuer(request.getIssuerId());
 
-        if (!issuerCert.isValid()) {
-            throw new IllegalArgumentException("Issuer certificate is not valid");
-        }
-
-        // Load issuer's private key
-        KeyPair issuerKeyPair = keystoreService.loadKeyPair(issuerCert.getKeystoreAlias(),
-                issuerCert.getKeystorePassword());
+        PreparedCertificate prepared = prepareEndEntityCertificate(request, owner, issuerCert);
+        IssuedCertificate issued = prepared.complete(signingService.sign(issuerCert, prepared.builder));
+        storeInKeystore(issued);
+        return issued.certificate;
+    }
 
+    private PreparedCertificate prepareEndEntityCertificate(CreateCertificateRequest request, User owner,
+                                                            Certificate issuerCert) throws Exception {
         KeyPair keyPair;
         PublicKey publicKey;
 
@@ -236,9 +435,7 @@ public class CertificateService {
             keyPair = null; // We don't store the private key for end-entity certificates
         } else {
             // Generate new key pair
-            KeyPairGenerator keyGen = KeyPairGenerator.getInstance("RSA");
-            keyGen.initialize(2048);
-            keyPair = keyGen.generateKeyPair();
+            keyPair = keyPairPool.take(keyAlgorithmFor(request));
             publicKey = keyPair.getPublic();
         }
 
@@ -252,24 +449,27 @@ public class CertificateService {
         X509v3CertificateBuilder certBuilder = new JcaX509v3CertificateBuilder(
                 issuer, serialNumber, validFrom, validTo, subject, publicKey);
 
-        // Add extensions for End Entity
-        certBuilder.addExtension(Extension.keyUsage, true,
-                new KeyUsage(KeyUsage.digitalSignature | KeyUsage.keyEncipherment));
-
-        certBuilder.addExtension(Extension.basicConstraints, true,
-                new BasicConstraints(false)); // Not a CA certificate
+        CompiledTemplate template = templateFor(request);
+        if (template != null) {
+            // Pre-encoded extensions shared by every certificate issued from the template
+            template.addExtensions(certBuilder);
+        } else {
+            // Add extensions for End Entity, key encipherment only makes sense for RSA keys
+            int keyUsage = "RSA".equals(publicKey.getAlgorithm()) ?
+                    KeyUsage.digitalSignature | KeyUsage.keyEncipherment :
+                    KeyUsage.digitalSignature;
+            certBuilder.addExtension(Extension.keyUsage, true, new KeyUsage(keyUsage));
+
+            certBuilder.addExtension(Extension.basicConstraints, true,
+                    new BasicConstraints(false)); // Not a CA certificate
+        }
 
         certBuilder.addExtension(Extension.subjectKeyIdentifier, false,
                 new SubjectKeyIdentifier(publicKey.getEncoded()));
+        addSubjectAlternativeNames(certBuilder, request);
 
-        // Sign with issuer's private key
-        ContentSigner signer = new JcaContentSignerBuilder("SHA256WithRSA").build(issuerKeyPair.getPrivate());
-        X509CertificateHolder certHolder = certBuilder.build(signer);
-        X509Certificate x509Cert = new JcaX509CertificateConverter().getCertificate(certHolder);
-
-        // Store in keystore (certificate only, no private key)
+        // Stored in keystore as certificate only, no private key
         String alias = "endentity_" + serialNumber.toString();
-        keystoreService.storeCertificate(alias, x509Cert);
 
         // Create certificate entity
         Certificate certificate = new Certificate(
@@ -283,33 +483,88 @@ public class CertificateService {
 
         certificate.setOwner(owner);
         certificate.setIssuer(issuerCert);
-        certificate.setCertificateData(Base64.getEncoder().encodeToString(x509Cert.getEncoded()));
+        certificate.setAncestorPath(certificateHierarchyService.pathBelow(issuerCert));
         certificate.setKeystoreAlias(alias);
 
-        return certificate;
+        // Signed later by the issuer's signer backend
+        return new PreparedCertificate(certBuilder, certificate, null);
     }
 
-    public List<CertificateDTO> getCertificatesForCurrentUser() {
-        User currentUser = SecurityUtils.getCurrentUser()
-                .orElseThrow(() -> new SecurityException("User not authenticated"));
+    private Certificate loadIssuer(Long issuerId) {
+        // Get issuer certificate
+        Certificate issuerCert = certificateRepository.findById(issuerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Issuer certificate not found"));
 
-        List<Certificate> certificates;
-        if (currentUser.getRole() == Role.ADMIN) {
-            certificates = certificateRepository.findAll();
+        if (!issuerCert.isValid()) {
+            throw new IllegalArgumentException("Issuer certificate is not valid");
+        }
+
+        // The stored dates are a copy, check the signed validity window too
+        try {
+            parsedCertificateCache.getCertificate(issuerCert).checkValidity();
+        } catch (CertificateException e) {
+            throw new IllegalArgumentException("Issuer certificate is not valid: " + e.getMessage());
+        }
+
+        return issuerCert;
+    }
+
+    private void storeInKeystore(IssuedCertificate issued) {
+        Certificate certificate = issued.certificate;
+        if (issued.keyPair != null) {
+            // CA certificates keep their private key for signing
+            certificate.setKeystorePassword(keystoreService.storeKeyPair(
+                    certificate.getKeystoreAlias(), issued.keyPair, issued.x509Certificate));
         } else {
-            certificates = certificateRepository.findCertificatesAccessibleByUser(currentUser);
+            keystoreService.storeCertificate(certificate.getKeystoreAlias(), issued.x509Certificate);
+        }
+    }
+
+    // Keyset pagination: stable id-descending order, next page starts below the last id returned
+    @Transactional(readOnly = true)
+    public CertificatePageDTO searchCertificates(CertificateSearchRequest request) {
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        int limit = request.getLimit() != null ? Math.max(1, Math.min(request.getLimit(), maxPageSize)) : defaultPageSize;
+
+        Specification<Certificate> spec = Specification.allOf(
+                CertificateSpecifications.idBefore(request.getCursor()),
+                CertificateSpecifications.hasType(request.getType()),
+                CertificateSpecifications.hasStatus(request.getStatus()),
+                CertificateSpecifications.hasIssuer(request.getIssuerId()),
+                CertificateSpecifications.hasOwner(request.getOwnerId()),
+                CertificateSpecifications.validFromOnOrAfter(request.getValidFrom()),
+                CertificateSpecifications.validToOnOrBefore(request.getValidTo()),
+                CertificateSpecifications.serialNumberStartsWith(request.getSerialPrefix()));
+        if (currentUser.getRole() != Role.ADMIN) {
+            spec = spec.and(CertificateSpecifications.accessibleBy(currentUser.getId()));
         }
 
-        return certificates.stream()
+        // One extra row tells us whether another page exists without a count query
+        List<Certificate> certificates = certificateRepository.findBy(spec, query -> query
+                .sortBy(Sort.by(Sort.Direction.DESC, "id"))
+                .project("owner")
+                .limit(limit + 1)
+                .all());
+
+        boolean hasMore = certificates.size() > limit;
+        if (hasMore) {
+            certificates = certificates.subList(0, limit);
+        }
+
+        List<CertificateDTO> page = certificates.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        Long nextCursor = hasMore ? certificates.get(certificates.size() - 1).getId() : null;
+        return new CertificatePageDTO(page, nextCursor, hasMore);
     }
 
     public CertificateDTO getCertificateById(Long id) {
         Certificate certificate = certificateRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Certificate not found"));
 
-        User currentUser = SecurityUtils.getCurrentUser()
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
                 .orElseThrow(() -> new SecurityException("User not authenticated"));
 
         // Check access permissions
@@ -320,11 +575,11 @@ public class CertificateService {
         return convertToDTO(certificate);
     }
 
-    public byte[] downloadCertificate(Long id) {
+    public byte[] downloadCertificate(Long id, CertificateFormat format) {
         Certificate certificate = certificateRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Certificate not found"));
 
-        User currentUser = SecurityUtils.getCurrentUser()
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
                 .orElseThrow(() -> new SecurityException("User not authenticated"));
 
         if (!canAccessCertificate(currentUser, certificate)) {
@@ -335,14 +590,52 @@ public class CertificateService {
                 "Certificate downloaded: " + certificate.getSerialNumber(),
                 "CERTIFICATE", certificate.getId());
 
-        return Base64.getDecoder().decode(certificate.getCertificateData());
+        try {
+            switch (format) {
+                case PEM:
+                    return CertificateEncodings.toPem(List.of(certificate.getEncoded()));
+                case PKCS7:
+                    return CertificateEncodings.toPkcs7(certificateChainCache.getParsedChain(certificate));
+                default:
+                    // Served straight from the DER column, no decoding
+                    return certificate.getEncoded();
+            }
+        } catch (Exception e) {
+            throw new CertificateGenerationException("Failed to encode certificate: " + e.getMessage(), e);
+        }
+    }
+
+    // Leaf plus every issuer, with an ETag over the bundle so repeat fetches can be answered with 304
+    @Transactional(readOnly = true)
+    public ChainBundle getCertificateChain(Long id, CertificateFormat format) {
+        Certificate certificate = certificateRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Certificate not found"));
+
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        if (!canAccessCertificate(currentUser, certificate)) {
+            throw new SecurityException("Access denied to certificate");
+        }
+
+        try {
+            byte[] data = format == CertificateFormat.PKCS7
+                    ? CertificateEncodings.toPkcs7(certificateChainCache.getParsedChain(certificate))
+                    : CertificateEncodings.toPem(certificateChainCache.getChain(certificate));
+
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            String eTag = "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+            return new ChainBundle(data, eTag);
+        } catch (Exception e) {
+            throw new CertificateGenerationException("Failed to encode certificate chain: " + e.getMessage(), e);
+        }
     }
 
     public CertificateDTO revokeCertificate(Long id, RevokeCertificateRequest request) {
         Certificate certificate = certificateRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Certificate not found"));
 
-        User currentUser = SecurityUtils.getCurrentUser()
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
                 .orElseThrow(() -> new SecurityException("User not authenticated"));
 
         if (!canRevokeCertificate(currentUser, certificate)) {
@@ -359,6 +652,14 @@ public class CertificateService {
 
         certificate = certificateRepository.save(certificate);
 
+        // A revoked issuer must not sign anything else
+        issuerKeyCache.invalidate(certificate.getId());
+
+        // CRL and other revocation views update once this transaction commits
+        eventPublisher.publishEvent(new CertificateRevokedEvent(certificate.getId(),
+                certificate.getIssuer() != null ? certificate.getIssuer().getId() : null,
+                certificate.getSerialNumber(), certificate.getRevokedAt(), certificate.getRevocationReason()));
+
         auditService.logEvent("CERTIFICATE_REVOKED",
                 "Certificate revoked: " + certificate.getSerialNumber() + ", Reason: " + request.getReason(),
                 "CERTIFICATE", certificate.getId());
@@ -366,20 +667,66 @@ public class CertificateService {
         return convertToDTO(certificate);
     }
 
+    // Revokes a CA and every active certificate beneath it with one set-based UPDATE and one audit record
+    public SubtreeRevocationDTO revokeCertificateSubtree(Long id, RevokeCertificateRequest request) {
+        Certificate certificate = certificateRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Certificate not found"));
+
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        if (!canRevokeCertificate(currentUser, certificate)) {
+            throw new SecurityException("Access denied to revoke certificate");
+        }
+
+        if (certificate.getType() == CertificateType.END_ENTITY) {
+            throw new IllegalArgumentException("Only CA certificates have a subtree to revoke");
+        }
+
+        String pathPrefix = certificateHierarchyService.pathBelow(certificate) + "%";
+
+        // Collect the CAs first, their CRLs and cached keys are what the revocation touches
+        List<Long> caIds = certificateRepository.findSubtreeCaIds(certificate.getId(), pathPrefix);
+        int revoked = certificateRepository.revokeSubtree(certificate.getId(), pathPrefix,
+                request.getReason(), LocalDateTime.now());
+
+        if (revoked == 0) {
+            throw new IllegalArgumentException("Certificate and its subtree are already revoked or expired");
+        }
+
+        // Revoked CAs must not sign anything else
+        for (Long caId : caIds) {
+            issuerKeyCache.invalidate(caId);
+        }
+
+        List<Long> affectedIssuers = new ArrayList<>(caIds);
+        if (certificate.getIssuer() != null) {
+            affectedIssuers.add(certificate.getIssuer().getId());
+        }
+        eventPublisher.publishEvent(new CertificateSubtreeRevokedEvent(certificate.getId(), affectedIssuers, revoked));
+
+        auditService.logEvent("CERTIFICATE_SUBTREE_REVOKED",
+                "Certificate subtree revoked: " + certificate.getSerialNumber() + ", " + revoked +
+                        " certificates, Reason: " + request.getReason(),
+                "CERTIFICATE", certificate.getId());
+
+        return new SubtreeRevocationDTO(certificate.getId(), revoked);
+    }
+
     public List<CertificateDTO> getCACertificates() {
-        List<Certificate> caCertificates = certificateRepository.findCACertificates();
+        // Kept current by CertificateExpirySweeper, so ACTIVE is a plain index lookup
+        List<Certificate> caCertificates = certificateRepository.findCACertificatesByStatus(CertificateStatus.ACTIVE);
         return caCertificates.stream()
-                .filter(cert -> cert.getStatus() == CertificateStatus.ACTIVE)
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    private boolean canAccessCertificate(User user, Certificate certificate) {
+    private boolean canAccessCertificate(AuthenticatedUser user, Certificate certificate) {
         if (user.getRole() == Role.ADMIN) {
             return true;
         }
 
-        if (user.equals(certificate.getOwner())) {
+        if (user.getId().equals(certificate.getOwner().getId())) {
             return true;
         }
 
@@ -391,38 +738,128 @@ public class CertificateService {
         return false;
     }
 
-    private boolean canRevokeCertificate(User user, Certificate certificate) {
+    private boolean canRevokeCertificate(AuthenticatedUser user, Certificate certificate) {
         if (user.getRole() == Role.ADMIN) {
             return true;
         }
 
-        if (user.equals(certificate.getOwner())) {
+        if (user.getId().equals(certificate.getOwner().getId())) {
             return true;
         }
 
         return false;
     }
 
-    private boolean isInUserChain(User user, Certificate certificate) {
-        if (certificate.getOwner().equals(user)) {
-            return true;
+    private boolean isInUserChain(AuthenticatedUser user, Certificate certificate) {
+        // One indexed query over the stored ancestor ids instead of a SELECT per issuer
+        return certificateHierarchyService.isInUserChain(user.getId(), certificate);
+    }
+
+    private KeyAlgorithm keyAlgorithmFor(CreateCertificateRequest request) {
+        return request.getKeyAlgorithm() != null ? request.getKeyAlgorithm() : KeyAlgorithm.RSA_2048;
+    }
+
+    private CompiledTemplate templateFor(CreateCertificateRequest request) {
+        return request.getTemplateId() != null ?
+                certificateTemplateService.getCompiledTemplate(request.getTemplateId()) : null;
+    }
+
+    private void addSubjectAlternativeNames(X509v3CertificateBuilder certBuilder,
+                                            CreateCertificateRequest request) throws Exception {
+        List<String> names = request.getSubjectAlternativeNames();
+        if (names == null || names.isEmpty()) {
+            return;
         }
 
-        Certificate issuer = certificate.getIssuer();
-        while (issuer != null) {
-            if (issuer.getOwner().equals(user)) {
-                return true;
+        GeneralName[] generalNames = new GeneralName[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim();
+            int separator = name.indexOf(':');
+            String prefix = separator > 0 ? name.substring(0, separator).toUpperCase() : "DNS";
+            String value = separator > 0 ? name.substring(separator + 1) : name;
+
+            switch (prefix) {
+                case "DNS":
+                    generalNames[i] = new GeneralName(GeneralName.dNSName, value);
+                    break;
+                case "IP":
+                    generalNames[i] = new GeneralName(GeneralName.iPAddress, value);
+                    break;
+                case "EMAIL":
+                    generalNames[i] = new GeneralName(GeneralName.rfc822Name, value);
+                    break;
+                case "URI":
+                    generalNames[i] = new GeneralName(GeneralName.uniformResourceIdentifier, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported subject alternative name: " + name);
             }
-            issuer = issuer.getIssuer();
         }
 
-        return false;
+        certBuilder.addExtension(Extension.subjectAlternativeName, false, new GeneralNames(generalNames));
     }
 
     private BigInteger generateSerialNumber() {
         return new BigInteger(64, secureRandom);
     }
 
+    // A built but unsigned certificate, waiting for the signer backend
+    private static class PreparedCertificate {
+        private final X509v3CertificateBuilder builder;
+        private final Certificate certificate;
+        private final KeyPair keyPair;
+
+        PreparedCertificate(X509v3CertificateBuilder builder, Certificate certificate, KeyPair keyPair) {
+            this.builder = builder;
+            this.certificate = certificate;
+            this.keyPair = keyPair;
+        }
+
+        IssuedCertificate complete(X509CertificateHolder certHolder) throws Exception {
+            X509Certificate x509Cert = new JcaX509CertificateConverter().getCertificate(certHolder);
+            certificate.setCertificateDer(x509Cert.getEncoded());
+            return new IssuedCertificate(certificate, x509Cert, keyPair);
+        }
+    }
+
+    // A signed certificate that hasn't been written to the keystore or database yet
+    private static class IssuedCertificate {
+        private final Certificate certificate;
+        private final X509Certificate x509Certificate;
+        private final KeyPair keyPair; // Only set for CA certificates, whose private key is kept
+
+        IssuedCertificate(Certificate certificate, X509Certificate x509Certificate, KeyPair keyPair) {
+            this.certificate = certificate;
+            this.x509Certificate = x509Certificate;
+            this.keyPair = keyPair;
+        }
+    }
+
+    public static class ChainBundle {
+        private final byte[] data;
+        private final String eTag;
+
+        ChainBundle(byte[] data, String eTag) {
+            this.data = data;
+            this.eTag = eTag;
+        }
+
+        public byte[] getData() { return data; }
+        public String getETag() { return eTag; }
+    }
+
+    public static class BatchIssuance {
+        private final User owner;
+        private final Certificate issuer;
+        private final List<CreateCertificateRequest> items;
+
+        BatchIssuance(User owner, Certificate issuer, List<CreateCertificateRequest> items) {
+            this.owner = owner;
+            this.issuer = issuer;
+            this.items = items;
+        }
+    }
+
     private CertificateDTO convertToDTO(Certificate certificate) {
         CertificateDTO dto = new CertificateDTO();
         dto.setId(certificate.getId());
@@ -433,7 +870,8 @@ public class CertificateService {
         dto.setValidTo(certificate.getValidTo());
         dto.setType(certificate.getType());
         dto.setStatus(certificate.getStatus());
-        dto.setCertificateData(certificate.getCertificateData());
+        byte[] encoded = certificate.getEncoded();
+        dto.setCertificateData(encoded != null ? Base64.getEncoder().encodeToString(encoded) : null);
         dto.setOwner(userService.convertToDTO(certificate.getOwner()));
         dto.setIssuerId(certificate.getIssuer() != null ? certificate.getIssuer().getId() : null);
         dto.setRevocationReason(certificate.getRevocationReason());
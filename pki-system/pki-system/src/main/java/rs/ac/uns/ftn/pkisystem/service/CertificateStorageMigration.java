@@ -0,0 +1,91 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+// Moves Base64 certificate_data into the binary certificate_der column in small batches, while the app keeps serving
+@Service
+public class CertificateStorageMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(CertificateStorageMigration.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${pki.migration.certificate-der.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pki.migration.certificate-der.batch-size:500}")
+    private int batchSize;
+
+    // Pause between batches so the migration never competes with live traffic for long
+    @Value("${pki.migration.certificate-der.pause-ms:100}")
+    private long pauseMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        Thread worker = new Thread(this::migrate, "certificate-der-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void migrate() {
+        long lastId = 0;
+        int migrated = 0;
+
+        try {
+            while (true) {
+                // Keyset walk over the primary key, each batch is its own short auto-commit statement
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                        "SELECT id, certificate_data FROM certificates " +
+                                "WHERE id > ? AND certificate_der IS NULL AND certificate_data IS NOT NULL " +
+                                "ORDER BY id LIMIT ?", lastId, batchSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                List<Object[]> updates = new ArrayList<>();
+                for (Map<String, Object> row : rows) {
+                    long id = ((Number) row.get("id")).longValue();
+                    byte[] der = Base64.getDecoder().decode((String) row.get("certificate_data"));
+                    updates.add(new Object[]{der, id});
+                    lastId = id;
+                }
+
+                // Only touches rows nobody has written DER to in the meantime
+                int[] counts = jdbcTemplate.batchUpdate(
+                        "UPDATE certificates SET certificate_der = ?, certificate_data = NULL " +
+                                "WHERE id = ? AND certificate_der IS NULL", updates);
+                for (int count : counts) {
+                    migrated += Math.max(count, 0);
+                }
+
+                Thread.sleep(pauseMs);
+            }
+
+            if (migrated > 0) {
+                log.info("Migrated {} certificates to DER storage", migrated);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Remaining rows are still readable through the Base64 column, the next startup picks them up
+            log.error("Certificate DER migration stopped after {} certificates", migrated, e);
+        }
+    }
+}
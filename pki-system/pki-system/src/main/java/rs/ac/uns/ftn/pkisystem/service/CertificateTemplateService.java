@@ -0,0 +1,222 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateTemplateDTO;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateTemplateRequest;
+import rs.ac.uns.ftn.pkisystem.entity.*;
+import rs.ac.uns.ftn.pkisystem.event.CertificateTemplateChangedEvent;
+import rs.ac.uns.ftn.pkisystem.exception.ResourceNotFoundException;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateTemplateRepository;
+import rs.ac.uns.ftn.pkisystem.security.AuthenticatedUser;
+import rs.ac.uns.ftn.pkisystem.security.SecurityUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class CertificateTemplateService {
+
+    @Autowired
+    private CertificateTemplateRepository certificateTemplateRepository;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Compiled once per template, dropped once an update or delete commits
+    private final Map<Long, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
+    // Bumped before every eviction, so a compile that read the old row can't be cached after it
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CertificateTemplateDTO createTemplate(CertificateTemplateRequest request) {
+        User currentUser = SecurityUtils.getCurrentUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        if (certificateTemplateRepository.existsByName(request.getName())) {
+            throw new IllegalArgumentException("Template name already exists");
+        }
+
+        CertificateTemplate template = new CertificateTemplate();
+        template.setOwner(currentUser);
+        applyRequest(template, request, currentUser);
+
+        // Compiling up front rejects unknown usages and broken patterns before anything is saved
+        CompiledTemplate.compile(template);
+
+        template = certificateTemplateRepository.save(template);
+
+        auditService.logEvent("TEMPLATE_CREATED",
+                "Certificate template created: " + template.getName(),
+                "CERTIFICATE_TEMPLATE", template.getId());
+
+        return convertToDTO(template);
+    }
+
+    @Transactional(readOnly = true)
+    public List<CertificateTemplateDTO> getTemplates(Long issuerId) {
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        List<CertificateTemplate> templates;
+        if (issuerId != null) {
+            templates = certificateTemplateRepository.findByIssuerId(issuerId);
+        } else if (currentUser.getRole() == Role.ADMIN) {
+            templates = certificateTemplateRepository.findAll();
+        } else {
+            templates = certificateTemplateRepository.findByOwnerId(currentUser.getId());
+        }
+
+        return templates.stream()
+                .filter(template -> canAccessTemplate(currentUser, template))
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public CertificateTemplateDTO getTemplate(Long id) {
+        return convertToDTO(loadAccessibleTemplate(id));
+    }
+
+    public CertificateTemplateDTO updateTemplate(Long id, CertificateTemplateRequest request) {
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        CertificateTemplate template = loadAccessibleTemplate(id);
+
+        if (!template.getName().equals(request.getName()) &&
+                certificateTemplateRepository.existsByName(request.getName())) {
+            throw new IllegalArgumentException("Template name already exists");
+        }
+
+        applyRequest(template, request, currentUser);
+        CompiledTemplate.compile(template);
+
+        template = certificateTemplateRepository.save(template);
+        eventPublisher.publishEvent(new CertificateTemplateChangedEvent(id));
+
+        auditService.logEvent("TEMPLATE_UPDATED",
+                "Certificate template updated: " + template.getName(),
+                "CERTIFICATE_TEMPLATE", template.getId());
+
+        return convertToDTO(template);
+    }
+
+    public void deleteTemplate(Long id) {
+        CertificateTemplate template = loadAccessibleTemplate(id);
+
+        certificateTemplateRepository.delete(template);
+        eventPublisher.publishEvent(new CertificateTemplateChangedEvent(id));
+
+        auditService.logEvent("TEMPLATE_DELETED",
+                "Certificate template deleted: " + template.getName(),
+                "CERTIFICATE_TEMPLATE", id);
+    }
+
+    // Hot path for template-driven issuance, a map lookup after the first use
+    @Transactional(readOnly = true)
+    public CompiledTemplate getCompiledTemplate(Long id) {
+        CompiledTemplate compiled = compiledTemplates.get(id);
+        if (compiled != null) {
+            return compiled;
+        }
+
+        long generation = evictions.get();
+        CertificateTemplate template = certificateTemplateRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Certificate template not found"));
+        CompiledTemplate loaded = CompiledTemplate.compile(template);
+        compiledTemplates.compute(id, (key, current) -> evictions.get() == generation ? loaded : current);
+        return loaded;
+    }
+
+    // Until the change commits other transactions still read the old row, evicting earlier would let them re-cache it
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onTemplateChanged(CertificateTemplateChangedEvent event) {
+        evictions.incrementAndGet();
+        compiledTemplates.remove(event.getTemplateId());
+    }
+
+    private void applyRequest(CertificateTemplate template, CertificateTemplateRequest request,
+                              AuthenticatedUser currentUser) {
+        Certificate issuer = certificateRepository.findById(request.getIssuerId())
+                .orElseThrow(() -> new ResourceNotFoundException("Issuer certificate not found"));
+
+        if (issuer.getType() == CertificateType.END_ENTITY) {
+            throw new IllegalArgumentException("Templates must belong to a CA certificate");
+        }
+        if (currentUser.getRole() != Role.ADMIN && !currentUser.getId().equals(issuer.getOwner().getId())) {
+            throw new SecurityException("Access denied to issuer certificate");
+        }
+
+        template.setName(request.getName());
+        template.setIssuer(issuer);
+        template.setCertificateType(request.getCertificateType());
+        template.setKeyAlgorithm(request.getKeyAlgorithm() != null ? request.getKeyAlgorithm() : KeyAlgorithm.RSA_2048);
+        template.setMaxValidityDays(request.getMaxValidityDays());
+        template.setKeyUsage(request.getKeyUsage());
+        template.setExtendedKeyUsage(request.getExtendedKeyUsage());
+        template.setPathLengthConstraint(request.getPathLengthConstraint());
+        template.setSubjectDnPattern(request.getSubjectDnPattern());
+        template.setSanPattern(request.getSanPattern());
+    }
+
+    private CertificateTemplate loadAccessibleTemplate(Long id) {
+        CertificateTemplate template = certificateTemplateRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Certificate template not found"));
+
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        if (!canAccessTemplate(currentUser, template)) {
+            throw new SecurityException("Access denied to certificate template");
+        }
+
+        return template;
+    }
+
+    private boolean canAccessTemplate(AuthenticatedUser user, CertificateTemplate template) {
+        if (user.getRole() == Role.ADMIN) {
+            return true;
+        }
+
+        // Owners of the template or of its issuing CA
+        return user.getId().equals(template.getOwner().getId()) ||
+                user.getId().equals(template.getIssuer().getOwner().getId());
+    }
+
+    private CertificateTemplateDTO convertToDTO(CertificateTemplate template) {
+        CertificateTemplateDTO dto = new CertificateTemplateDTO();
+        dto.setId(template.getId());
+        dto.setName(template.getName());
+        dto.setIssuerId(template.getIssuer().getId());
+        dto.setCertificateType(template.getCertificateType());
+        dto.setKeyAlgorithm(template.getKeyAlgorithm());
+        dto.setMaxValidityDays(template.getMaxValidityDays());
+        dto.setKeyUsage(template.getKeyUsage());
+        dto.setExtendedKeyUsage(template.getExtendedKeyUsage());
+        dto.setPathLengthConstraint(template.getPathLengthConstraint());
+        dto.setSubjectDnPattern(template.getSubjectDnPattern());
+        dto.setSanPattern(template.getSanPattern());
+        dto.setOwnerId(template.getOwner().getId());
+        dto.setCreatedAt(template.getCreatedAt());
+        dto.setUpdatedAt(template.getUpdatedAt());
+        return dto;
+    }
+}
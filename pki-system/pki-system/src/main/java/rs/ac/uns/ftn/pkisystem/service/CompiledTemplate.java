@@ -0,0 +1,174 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.bouncycastle.asn1.x509.*;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import rs.ac.uns.ftn.pkisystem.dto.CreateCertificateRequest;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateTemplate;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Immutable, pre-encoded form of a CertificateTemplate, built once and shared by every issuance that uses it
+public final class CompiledTemplate {
+
+    private static final Map<String, Integer> KEY_USAGES = Map.of(
+            "digitalsignature", KeyUsage.digitalSignature,
+            "nonrepudiation", KeyUsage.nonRepudiation,
+            "keyencipherment", KeyUsage.keyEncipherment,
+            "dataencipherment", KeyUsage.dataEncipherment,
+            "keyagreement", KeyUsage.keyAgreement,
+            "keycertsign", KeyUsage.keyCertSign,
+            "crlsign", KeyUsage.cRLSign,
+            "encipheronly", KeyUsage.encipherOnly,
+            "decipheronly", KeyUsage.decipherOnly
+    );
+
+    private static final Map<String, KeyPurposeId> EXTENDED_KEY_USAGES = Map.of(
+            "serverauth", KeyPurposeId.id_kp_serverAuth,
+            "clientauth", KeyPurposeId.id_kp_clientAuth,
+            "codesigning", KeyPurposeId.id_kp_codeSigning,
+            "emailprotection", KeyPurposeId.id_kp_emailProtection,
+            "timestamping", KeyPurposeId.id_kp_timeStamping,
+            "ocspsigning", KeyPurposeId.id_kp_OCSPSigning
+    );
+
+    private final Long id;
+    private final Long issuerId;
+    private final CertificateType certificateType;
+    private final KeyAlgorithm keyAlgorithm;
+    private final Duration maxValidity;
+    private final Pattern subjectDnPattern;
+    private final Pattern sanPattern;
+    private final List<Extension> extensions; // Everything but the key-specific SubjectKeyIdentifier and SANs
+
+    private CompiledTemplate(Long id, Long issuerId, CertificateType certificateType, KeyAlgorithm keyAlgorithm,
+                             Duration maxValidity, Pattern subjectDnPattern, Pattern sanPattern,
+                             List<Extension> extensions) {
+        this.id = id;
+        this.issuerId = issuerId;
+        this.certificateType = certificateType;
+        this.keyAlgorithm = keyAlgorithm;
+        this.maxValidity = maxValidity;
+        this.subjectDnPattern = subjectDnPattern;
+        this.sanPattern = sanPattern;
+        this.extensions = extensions;
+    }
+
+    public static CompiledTemplate compile(CertificateTemplate template) {
+        if (template.getCertificateType() == CertificateType.ROOT) {
+            throw new IllegalArgumentException("Templates apply to certificates issued by a CA, not to root certificates");
+        }
+
+        try {
+            boolean ca = template.getCertificateType() == CertificateType.INTERMEDIATE;
+            List<Extension> extensions = new ArrayList<>();
+
+            extensions.add(new Extension(Extension.keyUsage, true,
+                    new KeyUsage(keyUsageBits(template, ca)).getEncoded()));
+
+            BasicConstraints basicConstraints = !ca ? new BasicConstraints(false) :
+                    template.getPathLengthConstraint() != null ?
+                            new BasicConstraints(template.getPathLengthConstraint()) :
+                            new BasicConstraints(true);
+            extensions.add(new Extension(Extension.basicConstraints, true, basicConstraints.getEncoded()));
+
+            if (template.getExtendedKeyUsage() != null && !template.getExtendedKeyUsage().isBlank()) {
+                List<KeyPurposeId> purposes = new ArrayList<>();
+                for (String name : template.getExtendedKeyUsage().split(",")) {
+                    KeyPurposeId purpose = EXTENDED_KEY_USAGES.get(name.trim().toLowerCase());
+                    if (purpose == null) {
+                        throw new IllegalArgumentException("Unknown extended key usage: " + name.trim());
+                    }
+                    purposes.add(purpose);
+                }
+                extensions.add(new Extension(Extension.extendedKeyUsage, false,
+                        new ExtendedKeyUsage(purposes.toArray(new KeyPurposeId[0])).getEncoded()));
+            }
+
+            return new CompiledTemplate(
+                    template.getId(),
+                    template.getIssuer().getId(),
+                    template.getCertificateType(),
+                    template.getKeyAlgorithm(),
+                    Duration.ofDays(template.getMaxValidityDays()),
+                    compilePattern(template.getSubjectDnPattern()),
+                    compilePattern(template.getSanPattern()),
+                    Collections.unmodifiableList(extensions));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid certificate template: " + e.getMessage(), e);
+        }
+    }
+
+    // Fills in what the template fixes and rejects requests outside its constraints
+    public void applyTo(CreateCertificateRequest request) {
+        if (request.getType() != certificateType) {
+            throw new IllegalArgumentException("Template issues " + certificateType + " certificates only");
+        }
+        if (request.getIssuerId() == null) {
+            request.setIssuerId(issuerId);
+        } else if (!request.getIssuerId().equals(issuerId)) {
+            throw new IllegalArgumentException("Template belongs to a different issuer");
+        }
+        request.setKeyAlgorithm(keyAlgorithm);
+
+        if (Duration.between(request.getValidFrom(), request.getValidTo()).compareTo(maxValidity) > 0) {
+            throw new IllegalArgumentException("Validity exceeds the template maximum of " + maxValidity.toDays() + " days");
+        }
+        if (subjectDnPattern != null && !subjectDnPattern.matcher(request.getSubjectDN()).matches()) {
+            throw new IllegalArgumentException("Subject DN is not allowed by the template");
+        }
+        if (sanPattern != null && request.getSubjectAlternativeNames() != null) {
+            for (String name : request.getSubjectAlternativeNames()) {
+                String value = name.contains(":") ? name.substring(name.indexOf(':') + 1) : name;
+                if (!sanPattern.matcher(value).matches()) {
+                    throw new IllegalArgumentException("Subject alternative name is not allowed by the template: " + name);
+                }
+            }
+        }
+    }
+
+    public void addExtensions(X509v3CertificateBuilder builder) throws Exception {
+        for (Extension extension : extensions) {
+            builder.addExtension(extension);
+        }
+    }
+
+    public Long getId() { return id; }
+    public Long getIssuerId() { return issuerId; }
+    public CertificateType getCertificateType() { return certificateType; }
+    public KeyAlgorithm getKeyAlgorithm() { return keyAlgorithm; }
+
+    private static int keyUsageBits(CertificateTemplate template, boolean ca) {
+        if (template.getKeyUsage() == null || template.getKeyUsage().isBlank()) {
+            // Same defaults as untemplated issuance
+            if (ca) {
+                return KeyUsage.keyCertSign | KeyUsage.cRLSign | KeyUsage.digitalSignature;
+            }
+            return "RSA".equals(template.getKeyAlgorithm().getAlgorithm()) ?
+                    KeyUsage.digitalSignature | KeyUsage.keyEncipherment :
+                    KeyUsage.digitalSignature;
+        }
+
+        int bits = 0;
+        for (String name : template.getKeyUsage().split(",")) {
+            Integer bit = KEY_USAGES.get(name.trim().toLowerCase());
+            if (bit == null) {
+                throw new IllegalArgumentException("Unknown key usage: " + name.trim());
+            }
+            bits |= bit;
+        }
+        return bits;
+    }
+
+    private static Pattern compilePattern(String regex) {
+        return regex == null || regex.isBlank() ? null : Pattern.compile(regex);
+    }
+}
@@ -0,0 +1,306 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import jakarta.annotation.PostConstruct;
+import org.bouncycastle.asn1.x509.*;
+import org.bouncycastle.cert.X509CRLHolder;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateStatus;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.event.CertificateRevokedEvent;
+import rs.ac.uns.ftn.pkisystem.event.CertificateSubtreeRevokedEvent;
+import rs.ac.uns.ftn.pkisystem.exception.CertificateGenerationException;
+import rs.ac.uns.ftn.pkisystem.exception.ResourceNotFoundException;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+import rs.ac.uns.ftn.pkisystem.signer.SigningService;
+
+import java.io.FileOutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Signed CRL per issuing CA, kept in memory and on disk and updated on revocation instead of on every fetch
+@Service
+public class CrlService {
+
+    private static final Logger log = LoggerFactory.getLogger(CrlService.class);
+
+    // Free-text revocation reasons that map onto RFC 5280 reason codes
+    private static final Map<String, Integer> REASON_CODES = Map.of(
+            "keycompromise", CRLReason.keyCompromise,
+            "cacompromise", CRLReason.cACompromise,
+            "affiliationchanged", CRLReason.affiliationChanged,
+            "superseded", CRLReason.superseded,
+            "cessationofoperation", CRLReason.cessationOfOperation,
+            "certificatehold", CRLReason.certificateHold,
+            "privilegewithdrawn", CRLReason.privilegeWithdrawn,
+            "aacompromise", CRLReason.aACompromise
+    );
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private SigningService signingService;
+
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
+
+    @Value("${pki.crl.directory:crls}")
+    private String crlDirectory;
+
+    @Value("${pki.crl.validity-hours:24}")
+    private long validityHours;
+
+    // CRLs closer than this to their nextUpdate are re-signed
+    @Value("${pki.crl.refresh-margin-minutes:60}")
+    private long refreshMarginMinutes;
+
+    private final Map<Long, CrlSnapshot> crls = new ConcurrentHashMap<>();
+
+    // Time-based CRL numbers stay monotonic across restarts without persisting a counter
+    private final AtomicLong lastCrlNumber = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        try {
+            Files.createDirectories(Paths.get(crlDirectory));
+        } catch (Exception e) {
+            throw new CertificateGenerationException("Failed to create CRL directory: " + e.getMessage(), e);
+        }
+    }
+
+    public CrlSnapshot getCrl(Long issuerId) {
+        CrlSnapshot cached = crls.get(issuerId);
+        if (cached != null && !cached.needsRefresh(refreshMarginMinutes)) {
+            return cached;
+        }
+
+        return crls.compute(issuerId, (id, current) -> {
+            // Another request may have refreshed it while we waited
+            if (current != null && !current.needsRefresh(refreshMarginMinutes)) {
+                return current;
+            }
+            if (current == null) {
+                CrlSnapshot stored = loadFromDisk(id);
+                if (stored != null && !stored.needsRefresh(refreshMarginMinutes)) {
+                    return stored;
+                }
+            }
+            return generate(id);
+        });
+    }
+
+    // Appends the new entry to the current CRL instead of rebuilding it from the database
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        if (event.getIssuerId() == null) {
+            return;
+        }
+
+        crls.compute(event.getIssuerId(), (id, current) -> {
+            if (current == null) {
+                current = loadFromDisk(id);
+            }
+            if (current == null) {
+                // Nothing published yet, the next fetch builds it from the database
+                return null;
+            }
+
+            try {
+                Certificate issuer = loadIssuer(id);
+                X509CRLHolder previous = new X509CRLHolder(current.getEncoded());
+                return sign(issuer, builder -> {
+                    builder.addCRL(previous);
+                    addEntry(builder, event.getSerialNumber(), event.getRevokedAt(), event.getReason());
+                });
+            } catch (Exception e) {
+                // Drop the stale copy, the next fetch rebuilds it in full
+                log.error("Failed to update CRL for issuer {}", id, e);
+                deleteFromDisk(id);
+                return null;
+            }
+        });
+    }
+
+    // Too many new entries to append one by one, the affected CRLs are rebuilt from the database on next fetch
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCertificateSubtreeRevoked(CertificateSubtreeRevokedEvent event) {
+        for (Long issuerId : event.getAffectedIssuerIds()) {
+            invalidate(issuerId);
+        }
+    }
+
+    public void invalidate(Long issuerId) {
+        crls.remove(issuerId);
+        deleteFromDisk(issuerId);
+    }
+
+    // Re-signs cached CRLs before relying parties see them go past nextUpdate
+    @Scheduled(fixedDelayString = "${pki.crl.refresh-interval-ms:300000}")
+    public void refreshExpiring() {
+        for (Long issuerId : new ArrayList<>(crls.keySet())) {
+            try {
+                getCrl(issuerId);
+            } catch (Exception e) {
+                log.error("Failed to refresh CRL for issuer {}", issuerId, e);
+            }
+        }
+    }
+
+    private CrlSnapshot generate(Long issuerId) {
+        Certificate issuer = loadIssuer(issuerId);
+        List<Certificate> revoked = certificateRepository.findByIssuerIdAndStatus(issuerId, CertificateStatus.REVOKED);
+
+        return sign(issuer, builder -> {
+            for (Certificate certificate : revoked) {
+                addEntry(builder, certificate.getSerialNumber(), certificate.getRevokedAt(),
+                        certificate.getRevocationReason());
+            }
+        });
+    }
+
+    private CrlSnapshot sign(Certificate issuer, Consumer<X509v2CRLBuilder> entries) {
+        try {
+            X509CertificateHolder issuerCert = parsedCertificateCache.getHolder(issuer);
+
+            long crlNumber = lastCrlNumber.accumulateAndGet(System.currentTimeMillis(),
+                    (last, now) -> Math.max(last + 1, now));
+            Date thisUpdate = new Date();
+            Date nextUpdate = new Date(thisUpdate.getTime() + validityHours * 3600 * 1000);
+
+            X509v2CRLBuilder builder = new X509v2CRLBuilder(issuerCert.getSubject(), thisUpdate);
+            builder.setNextUpdate(nextUpdate);
+            entries.accept(builder);
+
+            builder.addExtension(Extension.cRLNumber, false, new CRLNumber(BigInteger.valueOf(crlNumber)));
+            SubjectKeyIdentifier issuerKeyId = SubjectKeyIdentifier.fromExtensions(issuerCert.getExtensions());
+            if (issuerKeyId != null) {
+                builder.addExtension(Extension.authorityKeyIdentifier, false,
+                        new AuthorityKeyIdentifier(issuerKeyId.getKeyIdentifier()));
+            }
+
+            ContentSigner signer = signingService.contentSigner(issuer);
+            X509CRLHolder crl = builder.build(signer);
+
+            CrlSnapshot snapshot = new CrlSnapshot(crl.getEncoded(), BigInteger.valueOf(crlNumber), thisUpdate, nextUpdate);
+            saveToDisk(issuer.getId(), snapshot);
+            return snapshot;
+        } catch (Exception e) {
+            throw new CertificateGenerationException("Failed to generate CRL: " + e.getMessage(), e);
+        }
+    }
+
+    private void addEntry(X509v2CRLBuilder builder, String serialNumber, LocalDateTime revokedAt, String reason) {
+        Date revocationDate = revokedAt != null
+                ? Date.from(revokedAt.atZone(ZoneId.systemDefault()).toInstant())
+                : new Date();
+
+        Integer reasonCode = reasonCodeFor(reason);
+        if (reasonCode != null) {
+            builder.addCRLEntry(new BigInteger(serialNumber), revocationDate, reasonCode);
+        } else {
+            // RFC 5280 asks for the reason extension to be left out when it is unspecified
+            builder.addCRLEntry(new BigInteger(serialNumber), revocationDate, (Extensions) null);
+        }
+    }
+
+    // Shared with the OCSP responder so both report the same reason
+    static Integer reasonCodeFor(String reason) {
+        return reason != null ? REASON_CODES.get(reason.toLowerCase().replaceAll("[^a-z]", "")) : null;
+    }
+
+    private Certificate loadIssuer(Long issuerId) {
+        Certificate issuer = certificateRepository.findById(issuerId)
+                .orElseThrow(() -> new ResourceNotFoundException("Issuer certificate not found"));
+        if (issuer.getType() == CertificateType.END_ENTITY) {
+            throw new IllegalArgumentException("Certificate is not a CA certificate");
+        }
+        return issuer;
+    }
+
+    private CrlSnapshot loadFromDisk(Long issuerId) {
+        Path path = crlPath(issuerId);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            byte[] encoded = Files.readAllBytes(path);
+            X509CRLHolder crl = new X509CRLHolder(encoded);
+            CRLNumber crlNumber = CRLNumber.getInstance(crl.getExtension(Extension.cRLNumber).getParsedValue());
+            lastCrlNumber.accumulateAndGet(crlNumber.getCRLNumber().longValue(), Math::max);
+            return new CrlSnapshot(encoded, crlNumber.getCRLNumber(), crl.getThisUpdate(), crl.getNextUpdate());
+        } catch (Exception e) {
+            // Unreadable copy, regenerate it
+            return null;
+        }
+    }
+
+    private void saveToDisk(Long issuerId, CrlSnapshot snapshot) throws Exception {
+        Path path = crlPath(issuerId);
+        Path temp = Paths.get(path + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp.toFile())) {
+            fos.write(snapshot.getEncoded());
+            fos.getFD().sync();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteFromDisk(Long issuerId) {
+        try {
+            Files.deleteIfExists(crlPath(issuerId));
+        } catch (Exception e) {
+            log.warn("Failed to delete CRL for issuer {}", issuerId, e);
+        }
+    }
+
+    private Path crlPath(Long issuerId) {
+        return Paths.get(crlDirectory, issuerId + ".crl");
+    }
+
+    public static class CrlSnapshot {
+        private final byte[] encoded;
+        private final BigInteger crlNumber;
+        private final Date thisUpdate;
+        private final Date nextUpdate;
+
+        CrlSnapshot(byte[] encoded, BigInteger crlNumber, Date thisUpdate, Date nextUpdate) {
+            this.encoded = encoded;
+            this.crlNumber = crlNumber;
+            this.thisUpdate = thisUpdate;
+            this.nextUpdate = nextUpdate;
+        }
+
+        public byte[] getEncoded() { return encoded; }
+        public BigInteger getCrlNumber() { return crlNumber; }
+        public Date getThisUpdate() { return thisUpdate; }
+        public Date getNextUpdate() { return nextUpdate; }
+
+        public String getETag() {
+            return "\"" + crlNumber.toString(16) + "\"";
+        }
+
+        boolean needsRefresh(long marginMinutes) {
+            return nextUpdate == null || System.currentTimeMillis() > nextUpdate.getTime() - marginMinutes * 60 * 1000;
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+
 @Service
 public class EmailService {
 
@@ -41,18 +43,35 @@ public class EmailService {
         sendEmail(to, subject, message);
     }
 
+    public void sendCertificateExpiringEmail(String to, String subjectDN, String serialNumber,
+                                             LocalDateTime validTo, int daysRemaining) {
+        String subject = "PKI System - Certificate Expiring in " + daysRemaining + (daysRemaining == 1 ? " Day" : " Days");
+        String message = "Your certificate is about to expire:\n" +
+                "Subject: " + subjectDN + "\n" +
+                "Serial number: " + serialNumber + "\n" +
+                "Valid until: " + validTo + "\n\n" +
+                "Please request a new certificate before it expires.";
+
+        // Failures propagate so CertificateExpiryNotifier can retry
+        deliver(to, subject, message);
+    }
+
     private void sendEmail(String to, String subject, String message) {
         try {
-            SimpleMailMessage mailMessage = new SimpleMailMessage();
-            mailMessage.setFrom(fromEmail);
-            mailMessage.setTo(to);
-            mailMessage.setSubject(subject);
-            mailMessage.setText(message);
-
-            mailSender.send(mailMessage);
+            deliver(to, subject, message);
         } catch (Exception e) {
             // Log error but don't fail the operation
             System.err.println("Failed to send email: " + e.getMessage());
         }
     }
+
+    private void deliver(String to, String subject, String message) {
+        SimpleMailMessage mailMessage = new SimpleMailMessage();
+        mailMessage.setFrom(fromEmail);
+        mailMessage.setTo(to);
+        mailMessage.setSubject(subject);
+        mailMessage.setText(message);
+
+        mailSender.send(mailMessage);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+// Moves each id sequence past the rows inserted while the tables were still AUTO_INCREMENT,
+// runs after Hibernate has created the sequence tables and before anything is inserted through them
+@Service
+@DependsOn("entityManagerFactory")
+public class IdSequenceSeeder {
+
+    // Sequence table -> entity table, matches the @SequenceGenerator names on the entities
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "users_seq", "users",
+            "certificates_seq", "certificates",
+            "certificate_templates_seq", "certificate_templates",
+            "audit_logs_seq", "audit_logs",
+            "user_tokens_seq", "user_tokens",
+            "password_entries_seq", "password_entries",
+            "password_shares_seq", "password_shares",
+            "issuance_jobs_seq", "issuance_jobs"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void seed() {
+        // Only MySQL's table emulation carries AUTO_INCREMENT history, native sequences start on an empty schema
+        if (entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+                .getSequenceSupport().supportsSequences()) {
+            return;
+        }
+
+        SEQUENCES.forEach((sequence, table) -> {
+            try {
+                // next_val is the next low value handed out (pooled-lo), never move it backwards
+                int updated = jdbcTemplate.update("UPDATE " + sequence + " SET next_val = " +
+                        "GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 1 FROM " + table + "))");
+                if (updated == 0) {
+                    jdbcTemplate.update("INSERT INTO " + sequence + " (next_val) " +
+                            "SELECT COALESCE(MAX(id), 0) + 1 FROM " + table);
+                }
+            } catch (DataAccessException e) {
+                // An unseeded sequence hands out ids that already exist, refuse to start instead
+                throw new IllegalStateException("Failed to seed id sequence " + sequence, e);
+            }
+        });
+    }
+}
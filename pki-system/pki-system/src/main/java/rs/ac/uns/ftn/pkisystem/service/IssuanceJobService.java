@@ -0,0 +1,286 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateDTO;
+import rs.ac.uns.ftn.pkisystem.dto.CreateCertificateRequest;
+import rs.ac.uns.ftn.pkisystem.dto.IssuanceJobDTO;
+import rs.ac.uns.ftn.pkisystem.entity.IssuanceJob;
+import rs.ac.uns.ftn.pkisystem.entity.IssuanceJobStatus;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.entity.User;
+import rs.ac.uns.ftn.pkisystem.exception.IssuanceQueueFullException;
+import rs.ac.uns.ftn.pkisystem.exception.ResourceNotFoundException;
+import rs.ac.uns.ftn.pkisystem.repository.IssuanceJobRepository;
+import rs.ac.uns.ftn.pkisystem.repository.UserRepository;
+import rs.ac.uns.ftn.pkisystem.security.AuthenticatedUser;
+import rs.ac.uns.ftn.pkisystem.security.SecurityUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+
+// Queues issuance requests in the issuance_jobs table and drains them on a bounded worker pool
+@Service
+public class IssuanceJobService {
+
+    @Autowired
+    private IssuanceJobRepository issuanceJobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CertificateService certificateService;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${pki.issuance.queue.max-depth:1000}")
+    private long maxDepth;
+
+    @Value("${pki.issuance.queue.workers:4}")
+    private int workers;
+
+    @Value("${pki.issuance.queue.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Value("${pki.issuance.queue.stale-after-ms:600000}")
+    private long staleAfterMs;
+
+    // Long-poll waiters on this node by job id. Woken right away when this node finishes the job,
+    // otherwise by pollWaiters once the finished row is visible
+    private final Map<Long, Set<CompletableFuture<Void>>> waiters = new ConcurrentHashMap<>();
+
+    private ExecutorService workerExecutor;
+    private Semaphore freeWorkers;
+
+    @PostConstruct
+    public void init() {
+        workerExecutor = Executors.newFixedThreadPool(workers);
+        freeWorkers = new Semaphore(workers);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workerExecutor.shutdown();
+    }
+
+    public IssuanceJobDTO submit(CreateCertificateRequest request) {
+        User currentUser = SecurityUtils.getCurrentUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        long depth = issuanceJobRepository.countByStatusIn(List.of(IssuanceJobStatus.PENDING, IssuanceJobStatus.RUNNING));
+        if (depth >= maxDepth) {
+            throw new IssuanceQueueFullException("Issuance queue is full, please retry later", retryAfterSeconds);
+        }
+
+        try {
+            IssuanceJob job = new IssuanceJob(currentUser, objectMapper.writeValueAsString(request));
+            job = issuanceJobRepository.save(job);
+
+            auditService.logEvent("CERTIFICATE_ISSUANCE_QUEUED",
+                    "Certificate issuance queued for: " + request.getSubjectDN(),
+                    "ISSUANCE_JOB", job.getId());
+
+            return convertToDTO(job);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to queue certificate issuance: " + e.getMessage(), e);
+        }
+    }
+
+    public IssuanceJobDTO getJob(Long id) {
+        IssuanceJob job = issuanceJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Issuance job not found"));
+
+        AuthenticatedUser currentUser = SecurityUtils.getAuthenticatedUser()
+                .orElseThrow(() -> new SecurityException("User not authenticated"));
+
+        if (currentUser.getRole() != Role.ADMIN && !currentUser.getId().equals(job.getRequester().getId())) {
+            throw new SecurityException("Access denied to issuance job");
+        }
+
+        return convertToDTO(job);
+    }
+
+    // Resolves when the job finishes or the wait runs out, whichever comes first
+    public CompletableFuture<IssuanceJobDTO> awaitJob(Long id, long timeoutMs) {
+        IssuanceJobDTO job = getJob(id);
+        if (timeoutMs <= 0 || isFinished(job)) {
+            return CompletableFuture.completedFuture(job);
+        }
+
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        addWaiter(id, waiter);
+
+        // The job may have finished between the first read and registering the waiter
+        IssuanceJobDTO current = findJob(id);
+        if (isFinished(current)) {
+            removeWaiter(id, waiter);
+            return CompletableFuture.completedFuture(current);
+        }
+
+        // Finished or timed out, the waiter is dropped either way
+        return waiter.completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, error) -> removeWaiter(id, waiter))
+                .thenApply(ignored -> findJob(id));
+    }
+
+    // Jobs finished by another node only show up in the table, one query covers every job waited on here
+    @Scheduled(fixedDelayString = "${pki.issuance.queue.wait-poll-interval-ms:1000}")
+    public void pollWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+
+        for (Long jobId : issuanceJobRepository.findFinishedIds(new ArrayList<>(waiters.keySet()))) {
+            notifyWaiters(jobId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pki.issuance.queue.poll-interval-ms:500}")
+    public void dispatch() {
+        issuanceJobRepository.requeueStale(LocalDateTime.now().minusNanos(staleAfterMs * 1_000_000));
+
+        int available = freeWorkers.availablePermits();
+        if (available == 0) {
+            return;
+        }
+
+        List<Long> pending = issuanceJobRepository.findIdsByStatus(IssuanceJobStatus.PENDING, PageRequest.of(0, available));
+        for (Long jobId : pending) {
+            if (!freeWorkers.tryAcquire()) {
+                return;
+            }
+
+            // Another node may have claimed it first. The claim time identifies this run when finishing, so
+            // truncate it to what the database keeps
+            LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+            if (issuanceJobRepository.claim(jobId, claimedAt) == 0) {
+                freeWorkers.release();
+                continue;
+            }
+
+            try {
+                workerExecutor.execute(() -> {
+                    try {
+                        runJob(jobId, claimedAt);
+                    } finally {
+                        freeWorkers.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the job is picked up again once it goes stale
+                freeWorkers.release();
+            }
+        }
+    }
+
+    private void runJob(Long jobId, LocalDateTime claimedAt) {
+        boolean finished;
+
+        try {
+            IssuanceJob job = issuanceJobRepository.findById(jobId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Issuance job not found"));
+            User requester = userRepository.findById(job.getRequester().getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Requester not found"));
+            CreateCertificateRequest request = objectMapper.readValue(job.getRequestData(), CreateCertificateRequest.class);
+
+            // Issue as the requester, so ownership and audit records match synchronous issuance
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(new UsernamePasswordAuthenticationToken(
+                    requester, null, requester.getAuthorities()));
+            SecurityContextHolder.setContext(context);
+
+            // The certificate and the job's completion commit together: a crash in between leaves neither,
+            // and a run whose job was requeued and claimed again rolls its certificate back
+            finished = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                CertificateDTO certificate = certificateService.createCertificate(request);
+                if (!finish(jobId, claimedAt, certificate.getId(), null)) {
+                    status.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            }));
+        } catch (Exception e) {
+            String error = e.getMessage();
+            finished = Boolean.TRUE.equals(transactionTemplate.execute(status -> finish(jobId, claimedAt, null, error)));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        if (finished) {
+            notifyWaiters(jobId);
+        }
+    }
+
+    // False when the job no longer belongs to this run
+    private boolean finish(Long jobId, LocalDateTime claimedAt, Long certificateId, String error) {
+        IssuanceJobStatus status = error == null ? IssuanceJobStatus.COMPLETED : IssuanceJobStatus.FAILED;
+        return issuanceJobRepository.finish(jobId, claimedAt, status, certificateId, error, LocalDateTime.now()) > 0;
+    }
+
+    private void addWaiter(Long jobId, CompletableFuture<Void> waiter) {
+        waiters.compute(jobId, (key, jobWaiters) -> {
+            Set<CompletableFuture<Void>> updated = jobWaiters != null ? jobWaiters : ConcurrentHashMap.newKeySet();
+            updated.add(waiter);
+            return updated;
+        });
+    }
+
+    private void removeWaiter(Long jobId, CompletableFuture<Void> waiter) {
+        waiters.computeIfPresent(jobId, (key, jobWaiters) -> {
+            jobWaiters.remove(waiter);
+            return jobWaiters.isEmpty() ? null : jobWaiters;
+        });
+    }
+
+    private void notifyWaiters(Long jobId) {
+        Set<CompletableFuture<Void>> jobWaiters = waiters.remove(jobId);
+        if (jobWaiters != null) {
+            jobWaiters.forEach(waiter -> waiter.complete(null));
+        }
+    }
+
+    private IssuanceJobDTO findJob(Long id) {
+        return issuanceJobRepository.findById(id)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new ResourceNotFoundException("Issuance job not found"));
+    }
+
+    private boolean isFinished(IssuanceJobDTO job) {
+        return job.getStatus() == IssuanceJobStatus.COMPLETED || job.getStatus() == IssuanceJobStatus.FAILED;
+    }
+
+    private IssuanceJobDTO convertToDTO(IssuanceJob job) {
+        IssuanceJobDTO dto = new IssuanceJobDTO();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus());
+        dto.setCertificateId(job.getCertificateId());
+        dto.setErrorMessage(job.getErrorMessage());
+        dto.setCreatedAt(job.getCreatedAt());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setCompletedAt(job.getCompletedAt());
+        return dto;
+    }
+}
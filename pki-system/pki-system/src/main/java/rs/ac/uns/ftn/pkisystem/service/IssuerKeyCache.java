@@ -0,0 +1,106 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+
+import java.security.KeyPair;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Unwrapped issuer key pairs, so CA signing skips the password decrypt and PBE unwrap on every issuance
+@Service
+public class IssuerKeyCache {
+
+    @Autowired
+    private KeystoreService keystoreService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pki.signing.key-cache.max-size:256}")
+    private int maxSize;
+
+    @Value("${pki.signing.key-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    // Access-ordered, so the eldest entry is always the least recently used one
+    private final LinkedHashMap<Long, CachedKeyPair> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("pki.issuer.key.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("pki.issuer.key.cache.requests").tag("result", "miss").register(meterRegistry);
+        evictions = Counter.builder("pki.issuer.key.cache.evictions").register(meterRegistry);
+        Gauge.builder("pki.issuer.key.cache.size", this, IssuerKeyCache::size).register(meterRegistry);
+    }
+
+    public KeyPair getKeyPair(Certificate issuer) {
+        synchronized (cache) {
+            CachedKeyPair cached = cache.get(issuer.getId());
+            if (cached != null && !cached.isExpired()) {
+                hits.increment();
+                return cached.keyPair;
+            }
+            if (cached != null) {
+                cache.remove(issuer.getId());
+                evictions.increment();
+            }
+        }
+
+        // Unwrap outside the lock so a miss doesn't block signing under other issuers
+        misses.increment();
+        KeyPair keyPair = keystoreService.loadKeyPair(issuer.getKeystoreAlias(), issuer.getKeystorePassword());
+
+        synchronized (cache) {
+            cache.put(issuer.getId(), new CachedKeyPair(keyPair, System.currentTimeMillis() + ttlSeconds * 1000));
+            evictOverflow();
+        }
+        return keyPair;
+    }
+
+    public void invalidate(Long issuerId) {
+        synchronized (cache) {
+            cache.remove(issuerId);
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Long, CachedKeyPair>> iterator = cache.entrySet().iterator();
+        while (cache.size() > maxSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private static class CachedKeyPair {
+        private final KeyPair keyPair;
+        private final long expiresAt;
+
+        CachedKeyPair(KeyPair keyPair, long expiresAt) {
+            this.keyPair = keyPair;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.ac.uns.ftn.pkisystem.entity.JwtSigningKey;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
+import rs.ac.uns.ftn.pkisystem.exception.KeystoreException;
+import rs.ac.uns.ftn.pkisystem.repository.JwtSigningKeyRepository;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+// Rotating ES256 keys for access tokens. Every node signs with the newest active key and verifies against all
+// published ones; the next key is published ahead of its activation so cached JWKS copies already contain it.
+// Keys live in jwt_signing_keys with their private half wrapped, so any node can sign with a key another created.
+@Service
+public class JwtKeyService {
+
+    public static final String ALGORITHM = "ES256";
+
+    @Autowired
+    private JwtSigningKeyRepository jwtSigningKeyRepository;
+
+    @Autowired
+    private KeystoreService keystoreService;
+
+    @Autowired
+    private KeyPairPool keyPairPool;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    @Value("${jwt.signing.rotation-hours:24}")
+    private long rotationHours;
+
+    // Should cover the JWKS max-age plus the refresh interval, so no verifier sees a kid it hasn't fetched yet
+    @Value("${jwt.signing.prepublish-seconds:600}")
+    private long prepublishSeconds;
+
+    // Lower bound between re-reads triggered by an unknown kid, so forged kids can't turn into a query per request
+    @Value("${jwt.signing.unknown-kid-refresh-ms:5000}")
+    private long unknownKidRefreshMs;
+
+    private volatile Map<String, PublicKey> publishedKeys = Map.of();
+    private volatile Map<String, Object> jwks = Map.of("keys", List.of());
+    private volatile ActiveKey activeKey;
+    private volatile long lastRefresh;
+
+    // Key inserts commit on their own, even when the first signing happens inside a login transaction
+    private TransactionTemplate keyTransaction;
+
+    @PostConstruct
+    public void init() {
+        keyTransaction = new TransactionTemplate(transactionManager);
+        keyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public ActiveKey getSigningKey() {
+        ActiveKey key = activeKey;
+        if (key == null || key.isRetired()) {
+            key = refreshSigningKey();
+        }
+        return key;
+    }
+
+    // Null when the kid isn't (or is no longer) published
+    public PublicKey getVerificationKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+
+        PublicKey key = publishedKeys.get(kid);
+        if (key == null && System.currentTimeMillis() - lastRefresh >= unknownKidRefreshMs) {
+            // Possibly rotated in by another node since our last refresh
+            refreshIfStale();
+            key = publishedKeys.get(kid);
+        }
+        return key;
+    }
+
+    public Map<String, Object> getJwks() {
+        if (activeKey == null) {
+            refreshSigningKey();
+        }
+        return jwks;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.signing.refresh-interval-ms:60000}")
+    public synchronized void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        List<JwtSigningKey> keys = new ArrayList<>(jwtSigningKeyRepository.findByExpiresAtAfter(now));
+
+        // Create the successor once the newest key is within the pre-publication window of retiring
+        JwtSigningKey latest = keys.stream()
+                .max(Comparator.comparing(JwtSigningKey::getRetiresAt))
+                .orElse(null);
+        if (latest == null || !latest.getRetiresAt().isAfter(now.plusSeconds(prepublishSeconds))) {
+            LocalDateTime activatesAt = latest == null || latest.getRetiresAt().isBefore(now)
+                    ? startingSlot(now) : latest.getRetiresAt();
+            keys.add(createOrLoadKey(activatesAt));
+        }
+
+        // Keys from before the private half was stored with them can still verify, but no node can sign with them
+        JwtSigningKey signing = keys.stream()
+                .filter(key -> key.getPrivateKey() != null)
+                .filter(key -> !key.getActivatesAt().isAfter(now) && key.getRetiresAt().isAfter(now))
+                .max(Comparator.comparing(JwtSigningKey::getActivatesAt).thenComparing(JwtSigningKey::getId))
+                .orElse(null);
+        if (signing == null) {
+            signing = createOrLoadKey(startingSlot(now));
+            keys.add(signing);
+        }
+
+        Map<String, PublicKey> published = new HashMap<>();
+        List<Map<String, Object>> jwkList = new ArrayList<>();
+        for (JwtSigningKey key : keys) {
+            ECPublicKey publicKey = decodePublicKey(key.getPublicKey());
+            published.put(key.getKid(), publicKey);
+            jwkList.add(toJwk(key.getKid(), publicKey));
+        }
+        publishedKeys = Collections.unmodifiableMap(published);
+        jwks = Map.of("keys", Collections.unmodifiableList(jwkList));
+
+        if (activeKey == null || !activeKey.getKid().equals(signing.getKid())) {
+            PrivateKey privateKey = keystoreService.unwrapPrivateKey(signing.getPrivateKey(), "EC");
+            activeKey = new ActiveKey(signing.getKid(), privateKey, toMillis(signing.getRetiresAt()));
+        }
+        lastRefresh = System.currentTimeMillis();
+    }
+
+    private synchronized ActiveKey refreshSigningKey() {
+        if (activeKey == null || activeKey.isRetired()) {
+            refresh();
+        }
+        return activeKey;
+    }
+
+    // Callers racing on the same unknown kid share one re-read
+    private synchronized void refreshIfStale() {
+        if (System.currentTimeMillis() - lastRefresh >= unknownKidRefreshMs) {
+            refresh();
+        }
+    }
+
+    // The unique activatesAt lets exactly one node insert the key for a slot, the others adopt the winner's
+    private JwtSigningKey createOrLoadKey(LocalDateTime activatesAt) {
+        try {
+            return createKey(activatesAt);
+        } catch (DataIntegrityViolationException e) {
+            // Read in a fresh transaction, a snapshot taken before the other node committed wouldn't show its key
+            return keyTransaction.execute(status -> jwtSigningKeyRepository.findByActivatesAt(activatesAt)).orElseThrow(() ->
+                    new KeystoreException("Failed to create JWT signing key: " + e.getMessage(), e));
+        }
+    }
+
+    private JwtSigningKey createKey(LocalDateTime activatesAt) {
+        try {
+            KeyPair keyPair = keyPairPool.take(KeyAlgorithm.EC_P256);
+            String kid = UUID.randomUUID().toString();
+            LocalDateTime retiresAt = activatesAt.plusHours(rotationHours);
+            LocalDateTime expiresAt = retiresAt.plusNanos(tokenLifetimeMs * 1_000_000);
+
+            JwtSigningKey key = new JwtSigningKey(kid, ALGORITHM, keyPair.getPublic().getEncoded(),
+                    activatesAt, retiresAt, expiresAt);
+            key.setPrivateKey(keystoreService.wrapPrivateKey(keyPair.getPrivate()));
+            return keyTransaction.execute(status -> jwtSigningKeyRepository.saveAndFlush(key));
+        } catch (KeystoreException | DataIntegrityViolationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new KeystoreException("Failed to create JWT signing key: " + e.getMessage(), e);
+        }
+    }
+
+    // With no current key to follow, nodes starting together still agree on the slot
+    private static LocalDateTime startingSlot(LocalDateTime now) {
+        return now.truncatedTo(ChronoUnit.MINUTES);
+    }
+
+    private static ECPublicKey decodePublicKey(byte[] encoded) {
+        try {
+            return (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(encoded));
+        } catch (Exception e) {
+            throw new KeystoreException("Failed to decode JWT signing key: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, Object> toJwk(String kid, ECPublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", ALGORITHM);
+        jwk.put("x", coordinate(publicKey.getW().getAffineX()));
+        jwk.put("y", coordinate(publicKey.getW().getAffineY()));
+        return jwk;
+    }
+
+    // RFC 7518 wants the full 32-byte field element: no sign byte, left-padded with zeros
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, padded.length);
+        System.arraycopy(bytes, bytes.length - length, padded, padded.length - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public static class ActiveKey {
+        private final String kid;
+        private final PrivateKey privateKey;
+        private final long retiresAt;
+
+        ActiveKey(String kid, PrivateKey privateKey, long retiresAt) {
+            this.kid = kid;
+            this.privateKey = privateKey;
+            this.retiresAt = retiresAt;
+        }
+
+        public String getKid() { return kid; }
+        public PrivateKey getPrivateKey() { return privateKey; }
+
+        boolean isRetired() {
+            return System.currentTimeMillis() >= retiresAt;
+        }
+    }
+}
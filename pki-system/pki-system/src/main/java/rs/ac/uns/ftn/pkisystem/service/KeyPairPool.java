@@ -0,0 +1,149 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps a reserve of pre-generated key pairs so issuance doesn't pay for key generation on the request thread
+@Service
+public class KeyPairPool {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyPairPool.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Pooled key algorithms, e.g. RSA_2048,EC_P256
+    @Value("${pki.keypool.algorithms:RSA_2048,EC_P256}")
+    private List<String> algorithms;
+
+    @Value("${pki.keypool.reserve:16}")
+    private int reserve;
+
+    @Value("${pki.keypool.low-watermark:4}")
+    private int lowWatermark;
+
+    @Value("${pki.keypool.workers:2}")
+    private int workers;
+
+    private final Map<KeyAlgorithm, Reserve> reserves = new ConcurrentHashMap<>();
+    private ExecutorService refillExecutor;
+
+    @PostConstruct
+    public void init() {
+        refillExecutor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "keypair-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        for (String name : algorithms) {
+            KeyAlgorithm algorithm = KeyAlgorithm.valueOf(name.trim());
+            Reserve pool = new Reserve(algorithm);
+            reserves.put(algorithm, pool);
+            refill(pool);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    public KeyPair take(KeyAlgorithm algorithm) throws GeneralSecurityException {
+        Reserve pool = reserves.get(algorithm);
+        if (pool == null) {
+            // Not pooled, generate inline
+            return generate(algorithm);
+        }
+
+        KeyPair keyPair = pool.keyPairs.poll();
+        if (pool.keyPairs.size() < lowWatermark) {
+            pool.lowWatermarkHits.increment();
+        }
+        refill(pool);
+
+        if (keyPair == null) {
+            // Pool drained faster than the workers could refill it, fall back to inline generation
+            pool.inline.increment();
+            return generate(algorithm);
+        }
+
+        pool.pooled.increment();
+        return keyPair;
+    }
+
+    private void refill(Reserve pool) {
+        if (pool.keyPairs.size() >= reserve || !pool.refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            refillExecutor.execute(() -> {
+                try {
+                    while (pool.keyPairs.size() < reserve && !Thread.currentThread().isInterrupted()) {
+                        pool.keyPairs.offer(generate(pool.algorithm));
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to refill key pair pool", e);
+                } finally {
+                    pool.refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            pool.refilling.set(false);
+        }
+    }
+
+    private KeyPair generate(KeyAlgorithm algorithm) throws GeneralSecurityException {
+        KeyPairGenerator keyGen = KeyPairGenerator.getInstance(algorithm.getAlgorithm());
+        if (algorithm.getCurve() != null) {
+            keyGen.initialize(new ECGenParameterSpec(algorithm.getCurve()));
+        } else if ("RSA".equals(algorithm.getAlgorithm())) {
+            keyGen.initialize(algorithm.getKeySize());
+        }
+        return keyGen.generateKeyPair();
+    }
+
+    private class Reserve {
+        private final KeyAlgorithm algorithm;
+        private final BlockingQueue<KeyPair> keyPairs = new LinkedBlockingQueue<>();
+        private final AtomicBoolean refilling = new AtomicBoolean(false);
+        private final Counter pooled;
+        private final Counter inline;
+        private final Counter lowWatermarkHits;
+
+        Reserve(KeyAlgorithm algorithm) {
+            this.algorithm = algorithm;
+
+            String spec = algorithm.name();
+            Gauge.builder("pki.keypool.available", keyPairs, BlockingQueue::size)
+                    .tag("spec", spec).register(meterRegistry);
+            pooled = Counter.builder("pki.keypool.requests")
+                    .tag("spec", spec).tag("source", "pool").register(meterRegistry);
+            inline = Counter.builder("pki.keypool.requests")
+                    .tag("spec", spec).tag("source", "inline").register(meterRegistry);
+            lowWatermarkHits = Counter.builder("pki.keypool.low-watermark")
+                    .tag("spec", spec).register(meterRegistry);
+        }
+    }
+}
@@ -1,45 +1,101 @@
 package rs.ac.uns.ftn.pkisystem.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import rs.ac.uns.ftn.pkisystem.exception.KeystoreException;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
 
 import javax.crypto.Cipher;
-import javax.crypto.KeyGenerator;
-import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.*;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
+import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class KeystoreService {
 
-    private static final String KEYSTORE_PATH = "keystores/pki-keystore.p12";
-    private static final String KEYSTORE_TYPE = "PKCS12";
+    private static final Logger log = LoggerFactory.getLogger(KeystoreService.class);
+
+    private static final String SHARD_COUNT_FILE = "pki-keystore.shards";
+    // Single-file layout used before sharding, migrated on first startup
+    private static final String LEGACY_KEYSTORE_FILE = "pki-keystore.p12";
+    private static final String LEGACY_JOURNAL_FILE = "pki-keystore.journal";
     private static final String MASTER_KEY = "MyMasterKeyForEncryption"; // In production, use proper key management
 
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Value("${pki.keystore.directory:keystores}")
+    private String keystoreDirectory;
+
+    @Value("${pki.keystore.shards:8}")
+    private int shardCount;
+
+    // Base64 AES key sealing the private keys kept in the database, supplied by the environment, never defaulted
+    @Value("${pki.key-wrapping.key:}")
+    private String keyWrappingKeyBase64;
+
+    private SecretKeySpec keyWrappingKey;
+
+    private KeystoreShard[] shards;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @PostConstruct
+    public void init() {
+        keyWrappingKey = loadKeyWrappingKey();
+
+        try {
+            Files.createDirectories(Paths.get(keystoreDirectory));
+            verifyShardCount();
+
+            shards = new KeystoreShard[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                shards[i] = new KeystoreShard(
+                        keystoreDirectory + "/pki-keystore-" + i + ".p12",
+                        keystoreDirectory + "/pki-keystore-" + i + ".journal",
+                        getKeystorePassword(), this::decryptPassword);
+                shards[i].open();
+            }
+
+            migrateLegacyKeystore();
+        } catch (KeystoreException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new KeystoreException("Failed to initialize keystore: " + e.getMessage(), e);
+        }
+    }
+
     public String storeKeyPair(String alias, KeyPair keyPair, X509Certificate certificate) {
         try {
             // Generate random password for this keystore entry
             String password = generateRandomPassword();
-
-            // Load or create keystore
-            KeyStore keystore = loadOrCreateKeystore();
+            String encryptedPassword = encryptPassword(password);
 
             // Store the private key and certificate
             Certificate[] chain = {certificate};
-            keystore.setKeyEntry(alias, keyPair.getPrivate(), password.toCharArray(), chain);
-
-            // Save keystore
-            saveKeystore(keystore);
+            shardFor(alias).setKeyEntry(alias, keyPair.getPrivate(), password.toCharArray(), encryptedPassword, chain);
 
             // Return encrypted password
-            return encryptPassword(password);
+            return encryptedPassword;
 
         } catch (Exception e) {
             throw new KeystoreException("Failed to store key pair: " + e.getMessage(), e);
@@ -48,27 +104,37 @@ public class KeystoreService {
 
     public void storeCertificate(String alias, X509Certificate certificate) {
         try {
-            // Load or create keystore
-            KeyStore keystore = loadOrCreateKeystore();
-
             // Store the certificate
-            keystore.setCertificateEntry(alias, certificate);
-
-            // Save keystore
-            saveKeystore(keystore);
+            shardFor(alias).setCertificateEntry(alias, certificate);
 
         } catch (Exception e) {
             throw new KeystoreException("Failed to store certificate: " + e.getMessage(), e);
         }
     }
 
+    public void storeCertificates(Map<String, X509Certificate> certificates) {
+        try {
+            // Group by shard so each shard journal is flushed once per batch
+            Map<KeystoreShard, Map<String, X509Certificate>> byShard = new HashMap<>();
+            certificates.forEach((alias, certificate) ->
+                    byShard.computeIfAbsent(shardFor(alias), shard -> new LinkedHashMap<>()).put(alias, certificate));
+
+            for (Map.Entry<KeystoreShard, Map<String, X509Certificate>> entry : byShard.entrySet()) {
+                entry.getKey().setCertificateEntries(entry.getValue());
+            }
+
+        } catch (Exception e) {
+            throw new KeystoreException("Failed to store certificates: " + e.getMessage(), e);
+        }
+    }
+
     public KeyPair loadKeyPair(String alias, String encryptedPassword) {
         try {
             String password = decryptPassword(encryptedPassword);
-            KeyStore keystore = loadOrCreateKeystore();
+            KeystoreShard shard = shardFor(alias);
 
-            PrivateKey privateKey = (PrivateKey) keystore.getKey(alias, password.toCharArray());
-            Certificate certificate = keystore.getCertificate(alias);
+            PrivateKey privateKey = (PrivateKey) shard.getKey(alias, password.toCharArray());
+            Certificate certificate = shard.getCertificate(alias);
             PublicKey publicKey = certificate.getPublicKey();
 
             return new KeyPair(publicKey, privateKey);
@@ -78,33 +144,142 @@ public class KeystoreService {
         }
     }
 
+    // For keys every node signs with, which can't live in one node's keystore files: the PKCS#8 encoding sealed
+    // with AES-GCM under the key wrapping key, as base64(iv || ciphertext) for a database column
+    public String wrapPrivateKey(PrivateKey privateKey) {
+        try {
+            byte[] iv = new byte[12];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keyWrappingKey, new GCMParameterSpec(128, iv));
+            byte[] sealed = cipher.doFinal(privateKey.getEncoded());
+
+            byte[] wrapped = new byte[iv.length + sealed.length];
+            System.arraycopy(iv, 0, wrapped, 0, iv.length);
+            System.arraycopy(sealed, 0, wrapped, iv.length, sealed.length);
+            return Base64.getEncoder().encodeToString(wrapped);
+        } catch (Exception e) {
+            throw new KeystoreException("Failed to wrap private key: " + e.getMessage(), e);
+        }
+    }
+
+    public PrivateKey unwrapPrivateKey(String wrappedKey, String algorithm) {
+        try {
+            byte[] wrapped = Base64.getDecoder().decode(wrappedKey);
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, keyWrappingKey, new GCMParameterSpec(128, wrapped, 0, 12));
+            byte[] encoded = cipher.doFinal(wrapped, 12, wrapped.length - 12);
+
+            return KeyFactory.getInstance(algorithm).generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        } catch (Exception e) {
+            throw new KeystoreException("Failed to unwrap private key: " + e.getMessage(), e);
+        }
+    }
+
     public X509Certificate loadCertificate(String alias) {
         try {
-            KeyStore keystore = loadOrCreateKeystore();
-            return (X509Certificate) keystore.getCertificate(alias);
+            return (X509Certificate) shardFor(alias).getCertificate(alias);
 
         } catch (Exception e) {
             throw new KeystoreException("Failed to load certificate: " + e.getMessage(), e);
         }
     }
 
-    private KeyStore loadOrCreateKeystore() throws Exception {
-        KeyStore keystore = KeyStore.getInstance(KEYSTORE_TYPE);
+    // Folds each shard's journal into its PKCS12 file in the background
+    @Scheduled(fixedDelayString = "${pki.keystore.compaction-interval-ms:30000}")
+    public void compact() {
+        for (KeystoreShard shard : shards) {
+            try {
+                shard.compact();
+            } catch (Exception e) {
+                // Journal is still intact, compaction will be retried on the next run
+                log.warn("Failed to compact keystore shard", e);
+            }
+        }
+    }
 
-        try (FileInputStream fis = new FileInputStream(KEYSTORE_PATH)) {
-            keystore.load(fis, getKeystorePassword().toCharArray());
-        } catch (IOException e) {
-            // Keystore doesn't exist, create new one
-            keystore.load(null, null);
+    @PreDestroy
+    public void shutdown() {
+        compact();
+        for (KeystoreShard shard : shards) {
+            try {
+                shard.close();
+            } catch (Exception e) {
+                log.error("Failed to close keystore shard", e);
+            }
         }
+    }
 
-        return keystore;
+    private KeystoreShard shardFor(String alias) {
+        // Aliases are root_/intermediate_/endentity_ + serial, so the hash spreads them evenly
+        return shards[Math.floorMod(alias.hashCode(), shards.length)];
     }
 
-    private void saveKeystore(KeyStore keystore) throws Exception {
-        try (FileOutputStream fos = new FileOutputStream(KEYSTORE_PATH)) {
-            keystore.store(fos, getKeystorePassword().toCharArray());
+    // Changing the shard count would route existing aliases to the wrong file
+    private void verifyShardCount() throws Exception {
+        Path path = Paths.get(keystoreDirectory, SHARD_COUNT_FILE);
+        if (Files.exists(path)) {
+            int existing = Integer.parseInt(Files.readString(path, StandardCharsets.US_ASCII).trim());
+            if (existing != shardCount) {
+                throw new KeystoreException("Keystore was created with " + existing +
+                        " shards, but pki.keystore.shards is " + shardCount);
+            }
+        } else {
+            Files.writeString(path, String.valueOf(shardCount), StandardCharsets.US_ASCII);
+        }
+    }
+
+    private void migrateLegacyKeystore() throws Exception {
+        KeystoreShard legacy = new KeystoreShard(keystoreDirectory + "/" + LEGACY_KEYSTORE_FILE,
+                keystoreDirectory + "/" + LEGACY_JOURNAL_FILE,
+                getKeystorePassword(), this::decryptPassword);
+        if (!legacy.exists()) {
+            return;
+        }
+
+        legacy.open();
+        for (String alias : legacy.aliases()) {
+            if (legacy.isKeyEntry(alias)) {
+                // Private keys are protected with per-entry passwords, which only the certificate rows know
+                Optional<String> encryptedPassword = certificateRepository.findByKeystoreAlias(alias)
+                        .map(certificate -> certificate.getKeystorePassword());
+                if (encryptedPassword.isEmpty()) {
+                    log.warn("Skipping keystore entry without certificate record: {}", alias);
+                    continue;
+                }
+
+                char[] password = decryptPassword(encryptedPassword.get()).toCharArray();
+                PrivateKey privateKey = (PrivateKey) legacy.getKey(alias, password);
+                shardFor(alias).setKeyEntry(alias, privateKey, password, encryptedPassword.get(),
+                        legacy.getCertificateChain(alias));
+            } else {
+                shardFor(alias).setCertificateEntry(alias, legacy.getCertificate(alias));
+            }
+        }
+
+        for (KeystoreShard shard : shards) {
+            shard.compact();
+        }
+        legacy.retire(".migrated");
+    }
+
+    private SecretKeySpec loadKeyWrappingKey() {
+        if (keyWrappingKeyBase64 == null || keyWrappingKeyBase64.isBlank()) {
+            throw new KeystoreException("pki.key-wrapping.key is not set; provide a base64 AES key via PKI_KEY_WRAPPING_KEY");
+        }
+
+        byte[] key;
+        try {
+            key = Base64.getDecoder().decode(keyWrappingKeyBase64.trim());
+        } catch (IllegalArgumentException e) {
+            throw new KeystoreException("pki.key-wrapping.key is not valid base64", e);
+        }
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new KeystoreException("pki.key-wrapping.key must be a 128, 192 or 256-bit AES key");
         }
+        return new SecretKeySpec(key, "AES");
     }
 
     private String getKeystorePassword() {
@@ -138,4 +313,4 @@ public class KeystoreService {
             throw new KeystoreException("Failed to decrypt password", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,386 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import rs.ac.uns.ftn.pkisystem.exception.KeystoreException;
+
+import java.io.*;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+// One PKCS12 file held resident in memory, with an append-only journal and its own lock
+class KeystoreShard {
+
+    private static final Logger log = LoggerFactory.getLogger(KeystoreShard.class);
+
+    private static final String KEYSTORE_TYPE = "PKCS12";
+
+    // Journal record types
+    private static final String KEY_ENTRY = "K";
+    private static final String CERTIFICATE_ENTRY = "C";
+
+    private final Path keystorePath;
+    private final Path journalPath;
+    private final char[] keystorePassword;
+    private final UnaryOperator<String> passwordDecryptor;
+
+    private KeyStore keystore;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private FileOutputStream journalStream;
+    private Writer journal;
+    private int pendingJournalRecords = 0;
+
+    // Group commit: records are numbered as they are written, one fsync covers every record written before it
+    private long journalSequence = 0;
+    private final AtomicLong syncedSequence = new AtomicLong();
+    private final Object syncMonitor = new Object();
+
+    KeystoreShard(String keystorePath, String journalPath, String keystorePassword,
+                  UnaryOperator<String> passwordDecryptor) {
+        this.keystorePath = Paths.get(keystorePath);
+        this.journalPath = Paths.get(journalPath);
+        this.keystorePassword = keystorePassword.toCharArray();
+        this.passwordDecryptor = passwordDecryptor;
+    }
+
+    void open() throws Exception {
+        lock.writeLock().lock();
+        try {
+            Files.createDirectories(keystorePath.toAbsolutePath().getParent());
+            keystore = loadOrCreateKeystore();
+            pendingJournalRecords = replayJournal();
+            openJournal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean exists() {
+        return Files.exists(keystorePath) || Files.exists(journalPath);
+    }
+
+    // Returns only once the entry is durable, callers commit database rows that depend on it right after
+    void setKeyEntry(String alias, PrivateKey privateKey, char[] password, String encryptedPassword,
+                     Certificate[] chain) throws Exception {
+        String record = encodeKeyEntry(alias, privateKey, password, chain);
+        long sequence;
+
+        lock.writeLock().lock();
+        try {
+            // Append to journal instead of rewriting the whole keystore. Memory only changes once the record is
+            // written, so a failed write can't leave a key that a later compaction would persist unjournaled.
+            writeJournalRecord(KEY_ENTRY, alias, encryptedPassword, record);
+            sequence = flushJournal();
+
+            keystore.setKeyEntry(alias, privateKey, password, chain);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        syncJournal(sequence);
+    }
+
+    void setCertificateEntry(String alias, Certificate certificate) throws Exception {
+        setCertificateEntries(Map.of(alias, certificate));
+    }
+
+    // Writes a group of certificate entries under one lock acquisition and one journal sync
+    void setCertificateEntries(Map<String, ? extends Certificate> certificates) throws Exception {
+        long sequence;
+
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, ? extends Certificate> entry : certificates.entrySet()) {
+                writeJournalRecord(CERTIFICATE_ENTRY, entry.getKey(), "-",
+                        Base64.getEncoder().encodeToString(entry.getValue().getEncoded()));
+            }
+            sequence = flushJournal();
+
+            for (Map.Entry<String, ? extends Certificate> entry : certificates.entrySet()) {
+                keystore.setCertificateEntry(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        syncJournal(sequence);
+    }
+
+    Key getKey(String alias, char[] password) throws Exception {
+        lock.readLock().lock();
+        try {
+            return keystore.getKey(alias, password);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Certificate getCertificate(String alias) throws Exception {
+        lock.readLock().lock();
+        try {
+            return keystore.getCertificate(alias);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Certificate[] getCertificateChain(String alias) throws Exception {
+        lock.readLock().lock();
+        try {
+            return keystore.getCertificateChain(alias);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isKeyEntry(String alias) throws Exception {
+        lock.readLock().lock();
+        try {
+            return keystore.isKeyEntry(alias);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<String> aliases() throws Exception {
+        lock.readLock().lock();
+        try {
+            return Collections.list(keystore.aliases());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Folds the journal into the PKCS12 file
+    void compact() throws Exception {
+        lock.writeLock().lock();
+        try {
+            if (pendingJournalRecords == 0) {
+                return;
+            }
+
+            saveKeystore();
+
+            // Keystore file now durably contains every journaled entry, start a fresh journal
+            syncedSequence.accumulateAndGet(journalSequence, Math::max);
+            journal.close();
+            Files.deleteIfExists(journalPath);
+            openJournal();
+            pendingJournalRecords = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Moves the shard files out of the way once their entries live elsewhere
+    void retire(String suffix) throws IOException {
+        close();
+        if (Files.exists(keystorePath)) {
+            Files.move(keystorePath, Paths.get(keystorePath + suffix), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (Files.exists(journalPath)) {
+            Files.move(journalPath, Paths.get(journalPath + suffix), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private KeyStore loadOrCreateKeystore() throws Exception {
+        KeyStore keystore = KeyStore.getInstance(KEYSTORE_TYPE);
+
+        try (InputStream in = Files.newInputStream(keystorePath)) {
+            keystore.load(in, keystorePassword);
+        } catch (NoSuchFileException e) {
+            // Keystore doesn't exist, create new one
+            keystore.load(null, null);
+        } catch (IOException e) {
+            // Wrong password or a damaged file; starting empty would let the next compaction overwrite every key
+            throw new KeystoreException("Keystore shard " + keystorePath + " cannot be read, refusing to open it: " +
+                    e.getMessage(), e);
+        }
+
+        return keystore;
+    }
+
+    private void saveKeystore() throws Exception {
+        // Write to a temporary file first so a failed write never corrupts the existing keystore
+        Path temp = Paths.get(keystorePath + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp.toFile())) {
+            keystore.store(fos, keystorePassword);
+            fos.getFD().sync();
+        }
+        Files.move(temp, keystorePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void openJournal() throws IOException {
+        journalStream = new FileOutputStream(journalPath.toFile(), true);
+        journal = new BufferedWriter(new OutputStreamWriter(journalStream, StandardCharsets.US_ASCII));
+    }
+
+    private void writeJournalRecord(String type, String alias, String encryptedPassword, String data) throws IOException {
+        journal.write(type + " " + alias + " " + encryptedPassword + " " + data + "\n");
+        pendingJournalRecords++;
+    }
+
+    // Hands the records to the OS and returns the sequence number a later sync has to cover
+    private long flushJournal() throws IOException {
+        journal.flush();
+        return ++journalSequence;
+    }
+
+    // Runs outside the write lock, so writers keep appending while one fsync covers all of them
+    private void syncJournal(long sequence) throws IOException {
+        synchronized (syncMonitor) {
+            if (syncedSequence.get() >= sequence) {
+                return;
+            }
+
+            long target;
+            FileChannel channel;
+            lock.readLock().lock();
+            try {
+                target = journalSequence;
+                channel = journalStream.getChannel();
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // Compaction swapped the journal, after syncing the keystore file that now holds these records
+                if (syncedSequence.get() >= sequence) {
+                    return;
+                }
+                throw e;
+            }
+            syncedSequence.accumulateAndGet(target, Math::max);
+        }
+    }
+
+    // Every complete record must replay. Only the last one may be damaged: a write torn by a crash was never
+    // acknowledged, so it is cut off. Damage anywhere before that means acknowledged entries are gone.
+    private int replayJournal() throws Exception {
+        if (!Files.exists(journalPath)) {
+            return 0;
+        }
+
+        byte[] data = Files.readAllBytes(journalPath);
+        int replayed = 0;
+        int start = 0;
+        while (start < data.length) {
+            int end = indexOfNewline(data, start);
+            boolean last = end < 0 || end == data.length - 1;
+
+            try {
+                if (end < 0) {
+                    throw new IOException("record is not terminated");
+                }
+                replayRecord(new String(data, start, end - start, StandardCharsets.US_ASCII));
+            } catch (Exception e) {
+                if (!last) {
+                    throw new KeystoreException("Keystore journal " + journalPath + " is corrupted at record " +
+                            (replayed + 1) + ": " + e.getMessage(), e);
+                }
+                log.warn("Discarding torn record at the end of keystore journal {}", journalPath, e);
+                truncateJournal(start);
+                break;
+            }
+
+            replayed++;
+            start = end + 1;
+        }
+        return replayed;
+    }
+
+    private void replayRecord(String record) throws Exception {
+        String[] parts = record.split(" ");
+        if (parts.length != 4) {
+            throw new IOException("expected 4 fields, found " + parts.length);
+        }
+
+        String alias = parts[1];
+        if (KEY_ENTRY.equals(parts[0])) {
+            char[] password = passwordDecryptor.apply(parts[2]).toCharArray();
+            KeyStore.PrivateKeyEntry entry = decodeKeyEntry(alias, parts[3], password);
+            keystore.setKeyEntry(alias, entry.getPrivateKey(), password, entry.getCertificateChain());
+        } else if (CERTIFICATE_ENTRY.equals(parts[0])) {
+            CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            Certificate certificate = factory.generateCertificate(
+                    new ByteArrayInputStream(Base64.getDecoder().decode(parts[3])));
+            keystore.setCertificateEntry(alias, certificate);
+        } else {
+            throw new IOException("unknown record type " + parts[0]);
+        }
+    }
+
+    // New records must start on a clean line, or the torn bytes would corrupt the first of them
+    private void truncateJournal(long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(true);
+        }
+    }
+
+    private static int indexOfNewline(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // A journaled key entry is a single-entry PKCS12 protected with the entry's own password, the same one
+    // guarding the key in the keystore; the record carries that password only in its encrypted form
+    private String encodeKeyEntry(String alias, PrivateKey privateKey, char[] password,
+                                  Certificate[] chain) throws Exception {
+        KeyStore entry = KeyStore.getInstance(KEYSTORE_TYPE);
+        entry.load(null, null);
+        entry.setKeyEntry(alias, privateKey, password, chain);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entry.store(out, password);
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    private KeyStore.PrivateKeyEntry decodeKeyEntry(String alias, String data, char[] password) throws Exception {
+        byte[] encoded = Base64.getDecoder().decode(data);
+        KeyStore entry = KeyStore.getInstance(KEYSTORE_TYPE);
+        char[] protection = password;
+        try {
+            entry.load(new ByteArrayInputStream(encoded), password);
+        } catch (IOException e) {
+            // Journals written before entries had their own protection used the keystore password
+            entry.load(new ByteArrayInputStream(encoded), keystorePassword);
+            protection = keystorePassword;
+        }
+        return (KeyStore.PrivateKeyEntry) entry.getEntry(alias, new KeyStore.PasswordProtection(protection));
+    }
+}
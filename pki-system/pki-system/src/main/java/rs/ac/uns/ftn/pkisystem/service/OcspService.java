@@ -0,0 +1,311 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.ocsp.*;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.event.CertificateRevokedEvent;
+import rs.ac.uns.ftn.pkisystem.event.CertificateSubtreeRevokedEvent;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+import rs.ac.uns.ftn.pkisystem.signer.SigningService;
+
+import java.math.BigInteger;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// OCSP responder (RFC 6960) serving pre-signed responses, so a status query is a map lookup
+@Service
+public class OcspService {
+
+    private static final Logger log = LoggerFactory.getLogger(OcspService.class);
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private SigningService signingService;
+
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
+
+    @Value("${pki.ocsp.validity-minutes:60}")
+    private long validityMinutes;
+
+    // Responses closer than this to their nextUpdate are re-signed by the refresh job
+    @Value("${pki.ocsp.refresh-margin-minutes:10}")
+    private long refreshMarginMinutes;
+
+    @Value("${pki.ocsp.cache.max-entries:100000}")
+    private int maxEntries;
+
+    @Value("${pki.ocsp.refresh-threads:2}")
+    private int refreshThreads;
+
+    @Value("${pki.ocsp.refresh-batch-size:500}")
+    private int refreshBatchSize;
+
+    // Keyed by serial first so revocation drops every CertID variant (SHA-1, SHA-256, ...) at once
+    private final Map<BigInteger, Map<CertificateID, OcspResult>> responses = new ConcurrentHashMap<>();
+    private final AtomicInteger cachedEntries = new AtomicInteger();
+
+    // Invalidation generations, bumped before the cache entry is dropped. A response is only cached if no
+    // invalidation for its serial happened since its status was read, so a GOOD signed just before a revocation
+    // committed can't outlive it. Striped to keep them bounded; a collision only costs a skipped cache write.
+    private final AtomicLongArray serialGenerations = new AtomicLongArray(1024);
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    private ExecutorService refreshExecutor;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private final DigestCalculatorProvider digestCalculatorProvider;
+
+    public OcspService() {
+        try {
+            digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().build();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialize OCSP digest provider", e);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        refreshExecutor = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "ocsp-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    public OcspResult respond(byte[] encodedRequest) {
+        OCSPReq request;
+        try {
+            request = new OCSPReq(encodedRequest);
+        } catch (Exception e) {
+            return errorResponse(OCSPRespBuilder.MALFORMED_REQUEST);
+        }
+
+        // Lightweight profile (RFC 5019): one certificate per request, nonces are not echoed
+        Req[] requests = request.getRequestList();
+        if (requests.length != 1) {
+            return errorResponse(OCSPRespBuilder.MALFORMED_REQUEST);
+        }
+
+        CertificateID certId = requests[0].getCertID();
+        Map<CertificateID, OcspResult> bySerial = responses.get(certId.getSerialNumber());
+        if (bySerial != null) {
+            OcspResult cached = bySerial.get(certId);
+            if (cached != null && !cached.isExpired()) {
+                return cached;
+            }
+        }
+
+        long generation = generationOf(certId.getSerialNumber());
+        OcspResult result = sign(certId);
+        if (result.isSuccessful()) {
+            cache(certId, result, generation, false);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        invalidate(new BigInteger(event.getSerialNumber()));
+    }
+
+    // A subtree can hold far more serials than are cached, dropping everything is cheaper than matching them
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCertificateSubtreeRevoked(CertificateSubtreeRevokedEvent event) {
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        globalGeneration.incrementAndGet();
+        responses.clear();
+        cachedEntries.set(0);
+    }
+
+    public void invalidate(BigInteger serialNumber) {
+        serialGenerations.incrementAndGet(stripeOf(serialNumber));
+        Map<CertificateID, OcspResult> removed = responses.remove(serialNumber);
+        if (removed != null) {
+            cachedEntries.addAndGet(-removed.size());
+        }
+    }
+
+    // Re-signs responses before they go past nextUpdate, so clients keep hitting the cache. The signing runs in
+    // batches on the refresh pool; the scheduler thread only collects what is due.
+    @Scheduled(fixedDelayString = "${pki.ocsp.refresh-interval-ms:60000}")
+    public void refreshExpiring() {
+        if (!refreshing.compareAndSet(false, true)) {
+            // The previous run is still signing
+            return;
+        }
+
+        long threshold = System.currentTimeMillis() + refreshMarginMinutes * 60 * 1000;
+        List<CertificateID> due = new ArrayList<>();
+        for (Map<CertificateID, OcspResult> bySerial : responses.values()) {
+            bySerial.forEach((certId, result) -> {
+                if (result.getNextUpdate().getTime() <= threshold) {
+                    due.add(certId);
+                }
+            });
+        }
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        try {
+            for (int start = 0; start < due.size(); start += refreshBatchSize) {
+                List<CertificateID> batch = due.subList(start, Math.min(start + refreshBatchSize, due.size()));
+                batches.add(CompletableFuture.runAsync(() -> refresh(batch), refreshExecutor));
+            }
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> refreshing.set(false));
+    }
+
+    private void refresh(List<CertificateID> batch) {
+        for (CertificateID certId : batch) {
+            try {
+                long generation = generationOf(certId.getSerialNumber());
+                OcspResult refreshed = sign(certId);
+                if (refreshed.isSuccessful()) {
+                    cache(certId, refreshed, generation, true);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to refresh OCSP response", e);
+            }
+        }
+    }
+
+    // Runs inside compute(), which holds the serial's bin lock: an invalidation either bumped the generation before
+    // the check, or its remove() waits for this write and then drops it
+    private void cache(CertificateID certId, OcspResult result, long generation, boolean replaceOnly) {
+        boolean[] added = {false};
+        responses.compute(certId.getSerialNumber(), (serial, bySerial) -> {
+            if (generationOf(serial) != generation || (replaceOnly && (bySerial == null || !bySerial.containsKey(certId)))) {
+                return bySerial;
+            }
+            if (bySerial == null) {
+                bySerial = new ConcurrentHashMap<>();
+            }
+            added[0] = bySerial.put(certId, result) == null;
+            return bySerial;
+        });
+
+        if (added[0] && cachedEntries.incrementAndGet() > maxEntries) {
+            // Over budget, start over rather than tracking recency on the hot path
+            responses.clear();
+            cachedEntries.set(0);
+        }
+    }
+
+    private long generationOf(BigInteger serialNumber) {
+        return globalGeneration.get() + serialGenerations.get(stripeOf(serialNumber));
+    }
+
+    private int stripeOf(BigInteger serialNumber) {
+        return Math.floorMod(serialNumber.hashCode(), serialGenerations.length());
+    }
+
+    private OcspResult sign(CertificateID certId) {
+        try {
+            Optional<Certificate> found = certificateRepository.findWithIssuerBySerialNumber(certId.getSerialNumber().toString());
+            if (found.isEmpty()) {
+                // We can't tell which CA the request is meant for, so we can't sign for it
+                return errorResponse(OCSPRespBuilder.UNAUTHORIZED);
+            }
+
+            Certificate certificate = found.get();
+            Certificate issuer = certificate.getIssuer() != null ? certificate.getIssuer() : certificate;
+            X509CertificateHolder issuerCert = parsedCertificateCache.getHolder(issuer);
+            if (!certId.matchesIssuer(issuerCert, digestCalculatorProvider)) {
+                return errorResponse(OCSPRespBuilder.UNAUTHORIZED);
+            }
+
+            CertificateStatus status = CertificateStatus.GOOD;
+            if (certificate.getStatus() == rs.ac.uns.ftn.pkisystem.entity.CertificateStatus.REVOKED) {
+                Date revokedAt = certificate.getRevokedAt() != null
+                        ? Date.from(certificate.getRevokedAt().atZone(ZoneId.systemDefault()).toInstant())
+                        : new Date();
+                Integer reasonCode = CrlService.reasonCodeFor(certificate.getRevocationReason());
+                status = new RevokedStatus(revokedAt, reasonCode != null ? reasonCode : CRLReason.unspecified);
+            }
+
+            Date thisUpdate = new Date();
+            Date nextUpdate = new Date(thisUpdate.getTime() + validityMinutes * 60 * 1000);
+
+            // The issuing CA answers for its own certificates, no delegated responder certificate
+            BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(new RespID(issuerCert.getSubject()));
+            builder.addResponse(certId, status, thisUpdate, nextUpdate, null);
+
+            ContentSigner signer = signingService.contentSigner(issuer);
+            BasicOCSPResp basicResponse = builder.build(signer, new X509CertificateHolder[]{issuerCert}, thisUpdate);
+
+            byte[] encoded = new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basicResponse).getEncoded();
+            return new OcspResult(encoded, thisUpdate, nextUpdate);
+        } catch (Exception e) {
+            log.error("Failed to sign OCSP response", e);
+            return errorResponse(OCSPRespBuilder.INTERNAL_ERROR);
+        }
+    }
+
+    private OcspResult errorResponse(int status) {
+        try {
+            return new OcspResult(new OCSPRespBuilder().build(status, null).getEncoded(), null, null);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode OCSP error response", e);
+        }
+    }
+
+    public static class OcspResult {
+        private final byte[] encoded;
+        private final Date thisUpdate;
+        private final Date nextUpdate;
+
+        OcspResult(byte[] encoded, Date thisUpdate, Date nextUpdate) {
+            this.encoded = encoded;
+            this.thisUpdate = thisUpdate;
+            this.nextUpdate = nextUpdate;
+        }
+
+        public byte[] getEncoded() { return encoded; }
+        public Date getThisUpdate() { return thisUpdate; }
+        public Date getNextUpdate() { return nextUpdate; }
+
+        public boolean isSuccessful() {
+            return nextUpdate != null;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > nextUpdate.getTime();
+        }
+    }
+}
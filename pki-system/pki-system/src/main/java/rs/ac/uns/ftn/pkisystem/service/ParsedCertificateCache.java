@@ -0,0 +1,151 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.exception.CertificateGenerationException;
+
+import java.security.cert.X509Certificate;
+import java.util.*;
+
+// Parsed certificates by id, bounded by total DER size since a single chain can hold large certificates
+@Service
+public class ParsedCertificateCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pki.certificate.cache.max-bytes:16777216}")
+    private long maxBytes;
+
+    @Value("${pki.certificate.cache.max-entries:10000}")
+    private int maxEntries;
+
+    // Access-ordered, so the eldest entry is always the least recently used one
+    private final LinkedHashMap<Long, ParsedCertificate> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("pki.certificate.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("pki.certificate.cache.requests").tag("result", "miss").register(meterRegistry);
+        evictions = Counter.builder("pki.certificate.cache.evictions").register(meterRegistry);
+        Gauge.builder("pki.certificate.cache.size", this, ParsedCertificateCache::size).register(meterRegistry);
+        Gauge.builder("pki.certificate.cache.bytes", this, ParsedCertificateCache::bytes).register(meterRegistry);
+        Gauge.builder("pki.certificate.cache.hit-ratio", this, ParsedCertificateCache::hitRatio).register(meterRegistry);
+    }
+
+    public X509CertificateHolder getHolder(Certificate certificate) {
+        return get(certificate).holder;
+    }
+
+    public X509Certificate getCertificate(Certificate certificate) {
+        return get(certificate).certificate;
+    }
+
+    public void invalidate(Long certificateId) {
+        synchronized (cache) {
+            ParsedCertificate removed = cache.remove(certificateId);
+            if (removed != null) {
+                forget(removed);
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public long bytes() {
+        synchronized (cache) {
+            return totalBytes;
+        }
+    }
+
+    private double hitRatio() {
+        double requests = hits.count() + misses.count();
+        return requests == 0 ? 0 : hits.count() / requests;
+    }
+
+    private ParsedCertificate get(Certificate certificate) {
+        synchronized (cache) {
+            ParsedCertificate cached = cache.get(certificate.getId());
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+
+        // Parse outside the lock, a duplicate parse on a race is cheaper than blocking every reader
+        misses.increment();
+        ParsedCertificate parsed = parse(certificate);
+        if (certificate.getId() == null) {
+            // Not persisted yet, nothing stable to key it by
+            return parsed;
+        }
+
+        synchronized (cache) {
+            ParsedCertificate previous = cache.put(certificate.getId(), parsed);
+            if (previous != null) {
+                forget(previous);
+            }
+            totalBytes += parsed.size;
+            evictOverflow();
+        }
+        return parsed;
+    }
+
+    private ParsedCertificate parse(Certificate certificate) {
+        byte[] encoded = certificate.getEncoded();
+        if (encoded == null) {
+            throw new IllegalStateException("Certificate has no encoded data: " + certificate.getSerialNumber());
+        }
+
+        try {
+            X509CertificateHolder holder = new X509CertificateHolder(encoded);
+            X509Certificate x509Certificate = new JcaX509CertificateConverter().getCertificate(holder);
+            return new ParsedCertificate(holder, x509Certificate, encoded.length);
+        } catch (Exception e) {
+            throw new CertificateGenerationException("Failed to parse certificate: " + e.getMessage(), e);
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<ParsedCertificate> iterator = cache.values().iterator();
+        while ((totalBytes > maxBytes || cache.size() > maxEntries) && iterator.hasNext()) {
+            ParsedCertificate eldest = iterator.next();
+            iterator.remove();
+            forget(eldest);
+            evictions.increment();
+        }
+    }
+
+    private void forget(ParsedCertificate removed) {
+        totalBytes -= removed.size;
+    }
+
+    private static class ParsedCertificate {
+        private final X509CertificateHolder holder;
+        private final X509Certificate certificate;
+        private final int size;
+
+        ParsedCertificate(X509CertificateHolder holder, X509Certificate certificate, int size) {
+            this.holder = holder;
+            this.certificate = certificate;
+            this.size = size;
+        }
+    }
+}
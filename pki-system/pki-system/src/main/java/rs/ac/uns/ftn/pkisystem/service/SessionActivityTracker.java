@@ -0,0 +1,107 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Collects per-session last activity in memory and writes it to user_tokens in periodic batches,
+// so authenticated requests never update a session row themselves
+@Service
+public class SessionActivityTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionActivityTracker.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Activity newer than this since the last write (with the same IP) is not worth another UPDATE
+    @Value("${pki.session-activity.granularity-ms:60000}")
+    private long granularityMs;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    // jti -> latest activity not yet written
+    private final Map<String, Activity> pending = new ConcurrentHashMap<>();
+
+    // jti -> activity as last written, for the granularity check
+    private final Map<String, Activity> written = new ConcurrentHashMap<>();
+
+    public void record(String jti, String ipAddress) {
+        long now = System.currentTimeMillis();
+
+        Activity last = written.get(jti);
+        if (last != null && now - last.at < granularityMs && Objects.equals(last.ipAddress, ipAddress)) {
+            return;
+        }
+
+        pending.put(jti, new Activity(now, ipAddress));
+    }
+
+    @Scheduled(fixedDelayString = "${pki.session-activity.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> jtis = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (String jti : new ArrayList<>(pending.keySet())) {
+            Activity activity = pending.remove(jti);
+            if (activity != null) {
+                jtis.add(jti);
+                updates.add(new Object[]{new Timestamp(activity.at), activity.ipAddress, jti});
+                written.put(jti, activity);
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE user_tokens SET last_activity = ?, ip_address = ? WHERE token_id = ?", updates);
+        } catch (Exception e) {
+            // Put the activity back unless a newer one arrived meanwhile, the next flush retries it
+            for (int i = 0; i < jtis.size(); i++) {
+                Object[] update = updates.get(i);
+                pending.putIfAbsent(jtis.get(i),
+                        new Activity(((Timestamp) update[0]).getTime(), (String) update[1]));
+                written.remove(jtis.get(i));
+            }
+            log.warn("Failed to flush session activity", e);
+        }
+    }
+
+    // Sessions idle for a whole token lifetime have expired, their write marks are no longer needed
+    @Scheduled(fixedDelayString = "${pki.session-activity.prune-interval-ms:600000}")
+    public void prune() {
+        long cutoff = System.currentTimeMillis() - tokenLifetimeMs;
+        written.values().removeIf(activity -> activity.at < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static class Activity {
+        private final long at;
+        private final String ipAddress;
+
+        Activity(long at, String ipAddress) {
+            this.at = at;
+            this.ipAddress = ipAddress;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import rs.ac.uns.ftn.pkisystem.entity.TokenRevocationEvent;
+import rs.ac.uns.ftn.pkisystem.repository.TokenRevocationEventRepository;
+import rs.ac.uns.ftn.pkisystem.repository.UserTokenRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Revoked token ids and per-user "revoked before" marks, kept in memory so the request path never queries for them.
+// Other nodes learn about revocations by polling token_revocation_events.
+@Service
+public class TokenRevocationRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationRegistry.class);
+
+    @Autowired
+    private TokenRevocationEventRepository tokenRevocationEventRepository;
+
+    @Autowired
+    private UserTokenRepository userTokenRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    // Re-read a little before the last poll, so events committed late or stamped by a skewed clock aren't missed
+    @Value("${pki.token-revocation.poll-overlap-ms:10000}")
+    private long pollOverlapMs;
+
+    // Bounds how long a revocation on another node takes to be honoured here
+    @Value("${pki.token-revocation.poll-interval-ms:2000}")
+    private long pollIntervalMs;
+
+    // jti -> expiry, entries are dropped once the token could no longer be used anyway
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    // user id -> epoch millis floored to whole seconds, matching the precision of the JWT iat claim;
+    // tokens issued in an earlier second are revoked, tokens issued in the same second are not
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded = false;
+    private LocalDateTime lastPoll;
+
+    // Own thread, so the poll interval holds no matter what the shared scheduler is busy with
+    private ScheduledExecutorService pollExecutor;
+
+    @PostConstruct
+    public void init() {
+        pollExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pollExecutor.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pollExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Object[] row : userTokenRepository.findRevokedUnexpired(now)) {
+            revokedTokens.put((String) row[0], toMillis((LocalDateTime) row[1]));
+        }
+        tokenRevocationEventRepository.findByExpiresAtAfter(now).forEach(this::apply);
+
+        lastPoll = now;
+        loaded = true;
+    }
+
+    public boolean isRevoked(String jti, Long userId, Date issuedAt) {
+        if (jti != null && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+
+        if (userId != null && issuedAt != null) {
+            Long before = revokedBefore.get(userId);
+            return before != null && issuedAt.getTime() < before;
+        }
+
+        return false;
+    }
+
+    // Until the startup load is done the in-memory view may be incomplete
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Joins the caller's transaction; memory is only updated once it commits, so a rollback revokes nothing
+    public void revokeToken(String jti, LocalDateTime expiresAt) {
+        TokenRevocationEvent event = TokenRevocationEvent.forToken(jti, expiresAt);
+        tokenRevocationEventRepository.save(event);
+        eventPublisher.publishEvent(event);
+    }
+
+    public void revokeAllForUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        TokenRevocationEvent event = TokenRevocationEvent.forUser(userId, now,
+                now.plusNanos(tokenLifetimeMs * 1_000_000));
+        tokenRevocationEventRepository.save(event);
+        eventPublisher.publishEvent(event);
+    }
+
+    // Without a surrounding transaction the save has already committed, so apply right away
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRevocationCommitted(TokenRevocationEvent event) {
+        apply(event);
+    }
+
+    public synchronized void poll() {
+        if (!loaded) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            // Applying an event twice is harmless, so the overlap needs no bookkeeping
+            tokenRevocationEventRepository
+                    .findByCreatedAtGreaterThanEqual(lastPoll.minusNanos(pollOverlapMs * 1_000_000))
+                    .forEach(this::apply);
+            lastPoll = now;
+        } catch (Exception e) {
+            // lastPoll stays put, the next run covers this window again
+            log.warn("Failed to poll token revocations", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pki.token-revocation.prune-interval-ms:600000}")
+    public void prune() {
+        long nowMillis = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < nowMillis);
+        revokedBefore.values().removeIf(before -> before + tokenLifetimeMs < nowMillis);
+
+        try {
+            tokenRevocationEventRepository.deleteExpired(LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Failed to prune token revocation events", e);
+        }
+    }
+
+    private void apply(TokenRevocationEvent event) {
+        if (event.getTokenId() != null) {
+            revokedTokens.put(event.getTokenId(), toMillis(event.getExpiresAt()));
+        }
+        if (event.getUserId() != null && event.getRevokedBefore() != null) {
+            long before = toMillis(event.getRevokedBefore().truncatedTo(ChronoUnit.SECONDS));
+            revokedBefore.merge(event.getUserId(), before, Math::max);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -3,6 +3,7 @@ package rs.ac.uns.ftn.pkisystem.service;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import rs.ac.uns.ftn.pkisystem.dto.UserTokenDTO;
 import rs.ac.uns.ftn.pkisystem.entity.User;
@@ -12,6 +13,7 @@ import rs.ac.uns.ftn.pkisystem.security.JwtUtil;
 import rs.ac.uns.ftn.pkisystem.security.SecurityUtils;
 
 import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -29,6 +31,12 @@ public class UserTokenService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Autowired
+    private SessionActivityTracker sessionActivityTracker;
+
     public void saveToken(User user, String jti, String token) {
         LocalDateTime expiresAt = jwtUtil.getExpirationAsLocalDateTime(token);
 
@@ -43,23 +51,26 @@ public class UserTokenService {
         userTokenRepository.save(userToken);
     }
 
+    // Served from memory; the database is only asked while the registry is still loading at startup.
+    // Runs on every authenticated request, so it must not open a transaction of its own.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean isTokenActive(String jti, Long userId, Date issuedAt) {
+        if (tokenRevocationRegistry.isLoaded()) {
+            return !tokenRevocationRegistry.isRevoked(jti, userId, issuedAt);
+        }
+        return isTokenActive(jti);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean isTokenActive(String jti) {
         Optional<UserToken> token = userTokenRepository.findByTokenId(jti);
         return token.isPresent() && !token.get().isRevoked() && !token.get().isExpired();
     }
 
+    // Recorded in memory and written in batches by SessionActivityTracker, no transaction needed per request
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateLastActivity(String jti, HttpServletRequest request) {
-        Optional<UserToken> tokenOpt = userTokenRepository.findByTokenId(jti);
-        if (tokenOpt.isPresent()) {
-            UserToken token = tokenOpt.get();
-            token.setLastActivity(LocalDateTime.now());
-
-            // Update IP address from request
-            String ipAddress = getClientIpAddress(request);
-            token.setIpAddress(ipAddress);
-
-            userTokenRepository.save(token);
-        }
+        sessionActivityTracker.record(jti, getClientIpAddress(request));
     }
 
     public List<UserTokenDTO> getUserTokens() {
@@ -86,6 +97,7 @@ public class UserTokenService {
 
         token.setRevoked(true);
         userTokenRepository.save(token);
+        tokenRevocationRegistry.revokeToken(token.getTokenId(), token.getExpiresAt());
 
         auditService.logEvent("TOKEN_REVOKED", "User token revoked", "TOKEN", token.getId());
     }
@@ -94,6 +106,7 @@ public class UserTokenService {
         List<UserToken> tokens = userTokenRepository.findByUserAndRevokedFalse(user);
         tokens.forEach(token -> token.setRevoked(true));
         userTokenRepository.saveAll(tokens);
+        tokenRevocationRegistry.revokeAllForUser(user.getId());
 
         auditService.logEvent("ALL_TOKENS_REVOKED", "All user tokens revoked", "USER", user.getId());
     }
@@ -0,0 +1,141 @@
+package rs.ac.uns.ftn.pkisystem.signer;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.exception.SignerException;
+import rs.ac.uns.ftn.pkisystem.service.ParsedCertificateCache;
+
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+// Keys on a PKCS#11 token (HSM, SoftHSM), looked up under the certificate's keystore alias
+@Component
+public class Pkcs11Signer implements Signer {
+
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
+
+    // SunPKCS11 configuration file, e.g. name, library and slot of the token
+    @Value("${pki.signer.pkcs11.config:}")
+    private String configPath;
+
+    @Value("${pki.signer.pkcs11.pin:}")
+    private String pin;
+
+    // Concurrent signing operations, each one holds its own token session
+    @Value("${pki.signer.pkcs11.sessions:4}")
+    private int sessions;
+
+    // Handles only, the key material never leaves the token
+    private final Map<String, PrivateKey> keys = new ConcurrentHashMap<>();
+
+    private volatile Provider provider;
+    private KeyStore keyStore;
+    private ExecutorService signingExecutor;
+
+    @Override
+    public String getName() {
+        return "pkcs11";
+    }
+
+    @Override
+    public PublicKey getPublicKey(Certificate issuer) {
+        return parsedCertificateCache.getCertificate(issuer).getPublicKey();
+    }
+
+    @Override
+    public CompletableFuture<List<byte[]>> signBatch(Certificate issuer, String algorithm, List<byte[]> payloads) {
+        List<CompletableFuture<byte[]>> futures = new ArrayList<>(payloads.size());
+        try {
+            connect();
+            PrivateKey key = keyFor(issuer);
+
+            // Spread over the session pool, so one slow operation doesn't hold up the rest of the batch
+            for (byte[] payload : payloads) {
+                futures.add(CompletableFuture.supplyAsync(() -> sign(key, algorithm, payload), signingExecutor));
+            }
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<byte[]> signatures = new ArrayList<>(futures.size());
+                    for (CompletableFuture<byte[]> future : futures) {
+                        signatures.add(future.join());
+                    }
+                    return signatures;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (signingExecutor != null) {
+            signingExecutor.shutdownNow();
+        }
+    }
+
+    private byte[] sign(PrivateKey key, String algorithm, byte[] payload) {
+        try {
+            Signature signature = Signature.getInstance(algorithm, provider);
+            signature.initSign(key);
+            signature.update(payload);
+            return signature.sign();
+        } catch (Exception e) {
+            throw new SignerException("PKCS#11 signing failed: " + e.getMessage(), e);
+        }
+    }
+
+    private PrivateKey keyFor(Certificate issuer) {
+        return keys.computeIfAbsent(issuer.getKeystoreAlias(), alias -> {
+            try {
+                PrivateKey key = (PrivateKey) keyStore.getKey(alias, null);
+                if (key == null) {
+                    throw new SignerException("No key on the PKCS#11 token for alias: " + alias);
+                }
+                return key;
+            } catch (SignerException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new SignerException("Failed to load PKCS#11 key: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // Connects on first use, so the token is only required when this backend is selected
+    private void connect() throws Exception {
+        if (provider != null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (provider != null) {
+                return;
+            }
+            if (configPath == null || configPath.isBlank()) {
+                throw new SignerException("pki.signer.pkcs11.config is not set");
+            }
+
+            Provider configured = Security.getProvider("SunPKCS11").configure(configPath);
+            Security.addProvider(configured);
+
+            KeyStore tokenKeyStore = KeyStore.getInstance("PKCS11", configured);
+            tokenKeyStore.load(null, pin.toCharArray());
+
+            keyStore = tokenKeyStore;
+            signingExecutor = Executors.newFixedThreadPool(sessions);
+            provider = configured;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package rs.ac.uns.ftn.pkisystem.signer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.exception.SignerException;
+import rs.ac.uns.ftn.pkisystem.service.ParsedCertificateCache;
+
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+// Keys held by an external signing service, reached over HTTP
+@Component
+public class RemoteSigner implements Signer {
+
+    @Autowired
+    private ParsedCertificateCache parsedCertificateCache;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Value("${pki.signer.remote.url:http://localhost:8200}")
+    private String url;
+
+    // Payloads per request to the signing service
+    @Value("${pki.signer.remote.batch-size:32}")
+    private int batchSize;
+
+    // Requests kept in flight at once
+    @Value("${pki.signer.remote.max-in-flight:8}")
+    private int maxInFlight;
+
+    private ExecutorService requestExecutor;
+
+    @PostConstruct
+    public void init() {
+        requestExecutor = Executors.newFixedThreadPool(maxInFlight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        requestExecutor.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return "remote";
+    }
+
+    @Override
+    public PublicKey getPublicKey(Certificate issuer) {
+        return parsedCertificateCache.getCertificate(issuer).getPublicKey();
+    }
+
+    @Override
+    public CompletableFuture<List<byte[]>> signBatch(Certificate issuer, String algorithm, List<byte[]> payloads) {
+        List<CompletableFuture<List<byte[]>>> requests = new ArrayList<>();
+        for (int start = 0; start < payloads.size(); start += batchSize) {
+            List<byte[]> chunk = payloads.subList(start, Math.min(start + batchSize, payloads.size()));
+            requests.add(CompletableFuture.supplyAsync(
+                    () -> send(issuer.getKeystoreAlias(), algorithm, chunk), requestExecutor));
+        }
+
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<byte[]> signatures = new ArrayList<>(payloads.size());
+                    for (CompletableFuture<List<byte[]>> request : requests) {
+                        signatures.addAll(request.join());
+                    }
+                    return signatures;
+                });
+    }
+
+    private List<byte[]> send(String keyId, String algorithm, List<byte[]> payloads) {
+        SignRequest request = new SignRequest();
+        request.setKeyId(keyId);
+        request.setAlgorithm(algorithm);
+        request.setPayloads(payloads.stream()
+                .map(payload -> Base64.getEncoder().encodeToString(payload))
+                .collect(Collectors.toList()));
+
+        SignResponse response;
+        try {
+            response = restTemplate.postForObject(url + "/sign", request, SignResponse.class);
+        } catch (Exception e) {
+            throw new SignerException("Remote signer request failed: " + e.getMessage(), e);
+        }
+
+        if (response == null || response.getSignatures() == null || response.getSignatures().size() != payloads.size()) {
+            throw new SignerException("Remote signer returned an incomplete response");
+        }
+
+        return response.getSignatures().stream()
+                .map(signature -> Base64.getDecoder().decode(signature))
+                .collect(Collectors.toList());
+    }
+
+    // POST {url}/sign, payloads and signatures base64 encoded, signatures in payload order
+    public static class SignRequest {
+        private String keyId;
+        private String algorithm;
+        private List<String> payloads;
+
+        public String getKeyId() { return keyId; }
+        public void setKeyId(String keyId) { this.keyId = keyId; }
+
+        public String getAlgorithm() { return algorithm; }
+        public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+
+        public List<String> getPayloads() { return payloads; }
+        public void setPayloads(List<String> payloads) { this.payloads = payloads; }
+    }
+
+    public static class SignResponse {
+        private List<String> signatures;
+
+        public List<String> getSignatures() { return signatures; }
+        public void setSignatures(List<String> signatures) { this.signatures = signatures; }
+    }
+}
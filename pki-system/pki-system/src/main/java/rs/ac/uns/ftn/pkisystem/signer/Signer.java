@@ -0,0 +1,24 @@
+package rs.ac.uns.ftn.pkisystem.signer;
+
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+
+import java.security.PublicKey;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Signs raw payloads with an issuing CA's private key, wherever that key lives
+public interface Signer {
+
+    // Matched against pki.signer.backend
+    String getName();
+
+    // Signatures come back in payload order; backends are free to sign them concurrently or in one round trip
+    CompletableFuture<List<byte[]>> signBatch(Certificate issuer, String algorithm, List<byte[]> payloads);
+
+    default CompletableFuture<byte[]> signAsync(Certificate issuer, String algorithm, byte[] payload) {
+        return signBatch(issuer, algorithm, List.of(payload)).thenApply(signatures -> signatures.get(0));
+    }
+
+    // Picks the signature algorithm, so it has to match the key the backend signs with
+    PublicKey getPublicKey(Certificate issuer);
+}
@@ -0,0 +1,158 @@
+package rs.ac.uns.ftn.pkisystem.signer;
+
+import jakarta.annotation.PostConstruct;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.TBSCertificate;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.DefaultSignatureAlgorithmIdentifierFinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
+import rs.ac.uns.ftn.pkisystem.exception.SignerException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Front for the configured Signer backend, turns certificate builders into signed certificates
+@Service
+public class SigningService {
+
+    @Autowired
+    private List<Signer> signers;
+
+    // software, pkcs11 or remote
+    @Value("${pki.signer.backend:software}")
+    private String backend;
+
+    @Value("${pki.signer.timeout-ms:30000}")
+    private long timeoutMs;
+
+    private Signer signer;
+
+    @PostConstruct
+    public void init() {
+        signer = signers.stream()
+                .filter(candidate -> candidate.getName().equals(backend))
+                .findFirst()
+                .orElseThrow(() -> new SignerException("Unknown signer backend: " + backend));
+    }
+
+    public X509CertificateHolder sign(Certificate issuer, X509v3CertificateBuilder builder) {
+        return await(signAsync(issuer, List.of(builder))).get(0);
+    }
+
+    public List<X509CertificateHolder> signBatch(Certificate issuer, List<X509v3CertificateBuilder> builders) {
+        return await(signAsync(issuer, builders));
+    }
+
+    // Builds every TBS certificate up front, then hands them to the backend in one call
+    public CompletableFuture<List<X509CertificateHolder>> signAsync(Certificate issuer,
+                                                                    List<X509v3CertificateBuilder> builders) {
+        String algorithm = KeyAlgorithm.signatureAlgorithmFor(signer.getPublicKey(issuer));
+        AlgorithmIdentifier algorithmId = new DefaultSignatureAlgorithmIdentifierFinder().find(algorithm);
+
+        List<TBSCertificate> tbsCertificates = new ArrayList<>(builders.size());
+        List<byte[]> payloads = new ArrayList<>(builders.size());
+        try {
+            for (X509v3CertificateBuilder builder : builders) {
+                // The builder only hands out the TBS structure through a ContentSigner, so capture it
+                TBSCertificate tbs = builder.build(new DeferredContentSigner(algorithmId))
+                        .toASN1Structure().getTBSCertificate();
+                tbsCertificates.add(tbs);
+                payloads.add(tbs.getEncoded(ASN1Encoding.DER));
+            }
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return signer.signBatch(issuer, algorithm, payloads).thenApply(signatures -> {
+            List<X509CertificateHolder> certificates = new ArrayList<>(signatures.size());
+            for (int i = 0; i < signatures.size(); i++) {
+                certificates.add(new X509CertificateHolder(org.bouncycastle.asn1.x509.Certificate.getInstance(
+                        new DERSequence(new ASN1Encodable[]{
+                                tbsCertificates.get(i), algorithmId, new DERBitString(signatures.get(i))}))));
+            }
+            return certificates;
+        });
+    }
+
+    // For CRLs and OCSP responses, which are built and signed one at a time
+    public ContentSigner contentSigner(Certificate issuer) {
+        String algorithm = KeyAlgorithm.signatureAlgorithmFor(signer.getPublicKey(issuer));
+        AlgorithmIdentifier algorithmId = new DefaultSignatureAlgorithmIdentifierFinder().find(algorithm);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        return new ContentSigner() {
+            @Override
+            public AlgorithmIdentifier getAlgorithmIdentifier() {
+                return algorithmId;
+            }
+
+            @Override
+            public OutputStream getOutputStream() {
+                return content;
+            }
+
+            @Override
+            public byte[] getSignature() {
+                return await(signer.signAsync(issuer, algorithm, content.toByteArray()));
+            }
+        };
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SignerException) {
+                throw (SignerException) cause;
+            }
+            throw new SignerException("Signing failed: " + cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new SignerException("Signing timed out after " + timeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SignerException("Signing interrupted", e);
+        }
+    }
+
+    // Records the algorithm in the TBS structure, the real signature is added afterwards
+    private static class DeferredContentSigner implements ContentSigner {
+        private final AlgorithmIdentifier algorithmId;
+
+        DeferredContentSigner(AlgorithmIdentifier algorithmId) {
+            this.algorithmId = algorithmId;
+        }
+
+        @Override
+        public AlgorithmIdentifier getAlgorithmIdentifier() {
+            return algorithmId;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public byte[] getSignature() {
+            return new byte[0];
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package rs.ac.uns.ftn.pkisystem.signer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.service.IssuerKeyCache;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Keys from the PKCS12 keystore, signed in-process on the calling thread
+@Component
+public class SoftwareSigner implements Signer {
+
+    @Autowired
+    private IssuerKeyCache issuerKeyCache;
+
+    @Override
+    public String getName() {
+        return "software";
+    }
+
+    @Override
+    public CompletableFuture<List<byte[]>> signBatch(Certificate issuer, String algorithm, List<byte[]> payloads) {
+        try {
+            KeyPair keyPair = issuerKeyCache.getKeyPair(issuer);
+            Signature signature = Signature.getInstance(algorithm);
+
+            List<byte[]> signatures = new ArrayList<>(payloads.size());
+            for (byte[] payload : payloads) {
+                signature.initSign(keyPair.getPrivate());
+                signature.update(payload);
+                signatures.add(signature.sign());
+            }
+            return CompletableFuture.completedFuture(signatures);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public PublicKey getPublicKey(Certificate issuer) {
+        return issuerKeyCache.getKeyPair(issuer).getPublic();
+    }
+}
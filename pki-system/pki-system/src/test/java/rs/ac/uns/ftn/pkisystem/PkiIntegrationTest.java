@@ -0,0 +1,70 @@
+package rs.ac.uns.ftn.pkisystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateDTO;
+import rs.ac.uns.ftn.pkisystem.dto.CreateCertificateRequest;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.entity.KeyAlgorithm;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.entity.User;
+import rs.ac.uns.ftn.pkisystem.repository.UserRepository;
+import rs.ac.uns.ftn.pkisystem.service.CertificateService;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Full application on the H2 test profile. Tests share one context and database, so every fixture gets unique names.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class PkiIntegrationTest {
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected CertificateService certificateService;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    protected User createUser(Role role) {
+        User user = new User(UUID.randomUUID() + "@test.local", "not-used", "Test", "User", "FTN");
+        user.setRole(role);
+        user.setActivated(true);
+        return userRepository.save(user);
+    }
+
+    // Services read the acting user from the security context, as they would behind the JWT filter
+    protected void actAs(User user) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        SecurityContextHolder.setContext(context);
+    }
+
+    // EC keys keep issuance cheap; validity shrinks down the hierarchy so children fit inside their issuer
+    protected CertificateDTO issue(CertificateType type, Long issuerId) {
+        CreateCertificateRequest request = new CreateCertificateRequest();
+        request.setSubjectDN("CN=" + type.name().toLowerCase() + "-" + UUID.randomUUID() + ", O=FTN, C=RS");
+        request.setType(type);
+        request.setIssuerId(issuerId);
+        request.setKeyAlgorithm(KeyAlgorithm.EC_P256);
+        request.setValidFrom(LocalDateTime.now().minusMinutes(5));
+        request.setValidTo(LocalDateTime.now().plusDays(
+                type == CertificateType.ROOT ? 365 : type == CertificateType.INTERMEDIATE ? 180 : 30));
+        return certificateService.createCertificate(request);
+    }
+}
@@ -2,8 +2,10 @@ package rs.ac.uns.ftn.pkisystem;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
+@ActiveProfiles("test")
 class PkiSystemApplicationTests {
 
 	@Test
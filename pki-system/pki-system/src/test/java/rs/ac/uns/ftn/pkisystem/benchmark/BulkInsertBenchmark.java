@@ -0,0 +1,166 @@
+package rs.ac.uns.ftn.pkisystem.benchmark;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.ac.uns.ftn.pkisystem.entity.AuditLog;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.repository.AuditLogRepository;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 10k inserts through the pooled sequence ids and JDBC batching, next to the IDENTITY mapping they replaced.
+// In-memory H2 has no round trip to save, the gap shows against a real server. Only runs with mvn -Pbenchmark test; against MySQL add -Dspring.datasource.url=...
+// -Dspring.jpa.database-platform=org.hibernate.dialect.MySQL8Dialect and credentials.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Tag("benchmark")
+class BulkInsertBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkInsertBenchmark.class);
+
+    private static final int ROWS = 10_000;
+
+    // Rows per transaction, like one batch issuance request
+    private static final int CHUNK = 500;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void insertAuditLogs() {
+        Consumer<List<AuditLog>> savePooled = auditLogRepository::saveAll;
+        IntFunction<AuditLog> pooledRow = i -> new AuditLog("BENCHMARK", "Bulk insert row " + i, "benchmark@test.local");
+        Consumer<List<IdentityAuditLog>> saveIdentity = chunk -> chunk.forEach(entityManager::persist);
+        IntFunction<IdentityAuditLog> identityRow =
+                i -> new IdentityAuditLog("BENCHMARK", "Bulk insert row " + i, "benchmark@test.local");
+
+        // One untimed round each, so neither side pays for JIT and pool warm-up
+        insert(savePooled, pooledRow, CHUNK * 2);
+        insert(saveIdentity, identityRow, CHUNK * 2);
+
+        Result pooled = insert(savePooled, pooledRow, ROWS);
+        Result identity = insert(saveIdentity, identityRow, ROWS);
+
+        log.info("audit_logs, {} rows: SEQUENCE pooled {} | IDENTITY {}", ROWS, pooled, identity);
+
+        // IDENTITY needs the generated key of every row, so Hibernate can't batch it
+        assertTrue(identity.statements >= ROWS, "IDENTITY baseline was batched: " + identity);
+        assertBatched(pooled);
+    }
+
+    @Test
+    void insertCertificates() {
+        LocalDateTime now = LocalDateTime.now();
+        Result pooled = insert(certificateRepository::saveAll, i -> {
+            String serial = UUID.randomUUID().toString();
+            return new Certificate(serial, "CN=bulk-" + i, "CN=Benchmark CA", now, now.plusDays(30),
+                    CertificateType.END_ENTITY);
+        }, ROWS);
+
+        log.info("certificates, {} rows: SEQUENCE pooled {}", ROWS, pooled);
+        assertBatched(pooled);
+    }
+
+    private <T> Result insert(Consumer<List<T>> save, IntFunction<T> rows, int count) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        for (int offset = 0; offset < count; offset += CHUNK) {
+            List<T> chunk = new ArrayList<>(CHUNK);
+            for (int i = offset; i < offset + CHUNK; i++) {
+                chunk.add(rows.apply(i));
+            }
+            transactionTemplate.executeWithoutResult(status -> save.accept(chunk));
+        }
+
+        return new Result(count, (System.nanoTime() - start) / 1_000_000, statistics.getPrepareStatementCount());
+    }
+
+    // Batches of 50 plus one id allocation per 50 rows stay far below one statement per row
+    private static void assertBatched(Result result) {
+        assertTrue(result.statements <= ROWS / 10, "Inserts were not batched: " + result);
+    }
+
+    private static class Result {
+        private final int rows;
+        private final long elapsedMs;
+        private final long statements;
+
+        Result(int rows, long elapsedMs, long statements) {
+            this.rows = rows;
+            this.elapsedMs = elapsedMs;
+            this.statements = statements;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d ms (%.0f rows/s), %d statements",
+                    elapsedMs, rows * 1000.0 / Math.max(elapsedMs, 1), statements);
+        }
+    }
+
+    // The audit_logs mapping as it was before pooled sequences, in its own table
+    @Entity
+    @Table(name = "benchmark_identity_audit_logs")
+    static class IdentityAuditLog {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(nullable = false)
+        private String eventType;
+
+        @Column(columnDefinition = "TEXT")
+        private String description;
+
+        private String userEmail;
+
+        private LocalDateTime timestamp = LocalDateTime.now();
+
+        protected IdentityAuditLog() {}
+
+        IdentityAuditLog(String eventType, String description, String userEmail) {
+            this.eventType = eventType;
+            this.description = description;
+            this.userEmail = userEmail;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package rs.ac.uns.ftn.pkisystem.controller;
+
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.ocsp.*;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import rs.ac.uns.ftn.pkisystem.PkiIntegrationTest;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateDTO;
+import rs.ac.uns.ftn.pkisystem.dto.RevokeCertificateRequest;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.entity.User;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OcspControllerTest extends PkiIntegrationTest {
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    private DigestCalculatorProvider digestCalculatorProvider;
+    private X509CertificateHolder rootCertificate;
+    private CertificateDTO leaf;
+    private User admin;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        digestCalculatorProvider = new JcaDigestCalculatorProviderBuilder().build();
+
+        admin = createUser(Role.ADMIN);
+        actAs(admin);
+        CertificateDTO root = issue(CertificateType.ROOT, null);
+        leaf = issue(CertificateType.END_ENTITY, root.getId());
+        rootCertificate = new X509CertificateHolder(certificateRepository.findById(root.getId()).orElseThrow().getEncoded());
+    }
+
+    @Test
+    void getWithRawBase64PathAnswersGood() throws Exception {
+        String base64 = base64RequestWithPlusAndSlash();
+
+        SingleResp response = query(get(URI.create("/api/ocsp/" + base64)));
+        assertNull(response.getCertStatus());
+    }
+
+    @Test
+    void getWithPercentEncodedBase64PathAnswersGood() throws Exception {
+        String base64 = base64RequestWithPlusAndSlash();
+        String encoded = base64.replace("+", "%2B").replace("/", "%2F").replace("=", "%3D");
+
+        SingleResp response = query(get(URI.create("/api/ocsp/" + encoded)));
+        assertNull(response.getCertStatus());
+    }
+
+    @Test
+    void postAnswersGood() throws Exception {
+        byte[] request = buildRequest(0).getEncoded();
+
+        SingleResp response = query(post("/api/ocsp").contentType("application/ocsp-request").content(request));
+        assertNull(response.getCertStatus());
+    }
+
+    @Test
+    void revokedCertificateIsReportedRevokedAfterCachedGoodAnswer() throws Exception {
+        byte[] request = buildRequest(0).getEncoded();
+        assertNull(query(post("/api/ocsp").contentType("application/ocsp-request").content(request)).getCertStatus());
+
+        // The security filter chain clears the context once a MockMvc request completes
+        actAs(admin);
+        RevokeCertificateRequest revoke = new RevokeCertificateRequest();
+        revoke.setReason("keyCompromise");
+        certificateService.revokeCertificate(leaf.getId(), revoke);
+
+        SingleResp response = query(post("/api/ocsp").contentType("application/ocsp-request").content(request));
+        assertInstanceOf(RevokedStatus.class, response.getCertStatus());
+
+        SingleResp viaGet = query(get(URI.create("/api/ocsp/" + Base64.getEncoder().encodeToString(request))));
+        assertInstanceOf(RevokedStatus.class, viaGet.getCertStatus());
+    }
+
+    @Test
+    void malformedRequestIsRejected() throws Exception {
+        byte[] body = mockMvc.perform(get(URI.create("/api/ocsp/bm90LWFuLW9jc3AtcmVxdWVzdA==")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(OCSPRespBuilder.MALFORMED_REQUEST, new OCSPResp(body).getStatus());
+    }
+
+    private SingleResp query(org.springframework.test.web.servlet.RequestBuilder request) throws Exception {
+        byte[] body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        OCSPResp response = new OCSPResp(body);
+        assertEquals(OCSPRespBuilder.SUCCESSFUL, response.getStatus());
+
+        BasicOCSPResp basic = (BasicOCSPResp) response.getResponseObject();
+        assertTrue(basic.isSignatureValid(new JcaContentVerifierProviderBuilder().build(rootCertificate)));
+
+        SingleResp single = basic.getResponses()[0];
+        assertEquals(new BigInteger(leaf.getSerialNumber()), single.getCertID().getSerialNumber());
+        return single;
+    }
+
+    // The responder ignores nonces, so one is varied until the base64 form holds both '+' and '/'
+    private String base64RequestWithPlusAndSlash() throws Exception {
+        for (int nonce = 0; ; nonce++) {
+            String base64 = Base64.getEncoder().encodeToString(buildRequest(nonce).getEncoded());
+            if (base64.contains("+") && base64.contains("/")) {
+                return base64;
+            }
+        }
+    }
+
+    private OCSPReq buildRequest(int nonce) throws Exception {
+        CertificateID certId = new CertificateID(digestCalculatorProvider.get(CertificateID.HASH_SHA1),
+                rootCertificate, new BigInteger(leaf.getSerialNumber()));
+
+        OCSPReqBuilder builder = new OCSPReqBuilder().addRequest(certId);
+        if (nonce > 0) {
+            builder.setRequestExtensions(new Extensions(new Extension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce, false,
+                    new DEROctetString(ByteBuffer.allocate(4).putInt(nonce).array()))));
+        }
+        return builder.build();
+    }
+}
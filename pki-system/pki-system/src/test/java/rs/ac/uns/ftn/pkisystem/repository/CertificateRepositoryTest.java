@@ -0,0 +1,105 @@
+package rs.ac.uns.ftn.pkisystem.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import rs.ac.uns.ftn.pkisystem.PkiIntegrationTest;
+import rs.ac.uns.ftn.pkisystem.StatementCounter;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateDTO;
+import rs.ac.uns.ftn.pkisystem.dto.CertificatePageDTO;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateSearchRequest;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Statement-count regression for certificate listings: a page, DTOs included, must stay one SELECT
+// however many owners it spans
+class CertificateRepositoryTest extends PkiIntegrationTest {
+
+    private static final int CERTIFICATES = 200;
+    private static final int OWNERS = 20;
+    private static final int PAGE = 100;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    private User rootOwner;
+    private Set<Long> fixtureIds;
+
+    @BeforeEach
+    void setUp() {
+        List<User> owners = new ArrayList<>();
+        for (int i = 0; i < OWNERS; i++) {
+            owners.add(createUser(i == 0 ? Role.CA_USER : Role.END_USER));
+        }
+        rootOwner = owners.get(0);
+
+        LocalDateTime now = LocalDateTime.now();
+        Certificate root = certificate(CertificateType.ROOT, now);
+        root.setOwner(rootOwner);
+        certificateRepository.save(root);
+
+        // Every other certificate is an intermediate under the root, spread over all owners
+        List<Certificate> intermediates = new ArrayList<>();
+        for (int i = 1; i < CERTIFICATES; i++) {
+            Certificate intermediate = certificate(CertificateType.INTERMEDIATE, now);
+            intermediate.setIssuer(root);
+            intermediate.setOwner(owners.get(i % OWNERS));
+            intermediates.add(intermediate);
+        }
+        certificateRepository.saveAll(intermediates);
+
+        fixtureIds = intermediates.stream().map(Certificate::getId).collect(Collectors.toSet());
+        fixtureIds.add(root.getId());
+    }
+
+    @Test
+    void caListingIsOneStatement() {
+        List<CertificateDTO> certificates = countingStatements(() -> certificateService.getCACertificates());
+
+        Set<Long> ids = certificates.stream().map(CertificateDTO::getId).collect(Collectors.toSet());
+        assertTrue(ids.containsAll(fixtureIds));
+    }
+
+    @Test
+    void searchPageIsOneStatement() {
+        // The root owner reaches the whole fixture through its own root and everything that root issued
+        actAs(rootOwner);
+        CertificateSearchRequest request = new CertificateSearchRequest();
+        request.setLimit(PAGE);
+
+        CertificatePageDTO page = countingStatements(() -> certificateService.searchCertificates(request));
+
+        assertEquals(PAGE, page.getCertificates().size());
+        assertTrue(page.isHasMore());
+        for (CertificateDTO certificate : page.getCertificates()) {
+            assertTrue(fixtureIds.contains(certificate.getId()));
+            assertNotNull(certificate.getOwner().getEmail());
+        }
+    }
+
+    private <T> T countingStatements(Supplier<T> listing) {
+        StatementCounter.start();
+        T result = listing.get();
+        assertEquals(1, StatementCounter.stop());
+        return result;
+    }
+
+    private static Certificate certificate(CertificateType type, LocalDateTime now) {
+        String name = type.name().toLowerCase() + "-" + UUID.randomUUID();
+        Certificate certificate = new Certificate(name, "CN=" + name, "CN=root", now, now.plusDays(30), type);
+        certificate.setKeystoreAlias(name);
+        return certificate;
+    }
+}
@@ -0,0 +1,121 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.bouncycastle.cert.X509CRLHolder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import rs.ac.uns.ftn.pkisystem.PkiIntegrationTest;
+import rs.ac.uns.ftn.pkisystem.dto.CertificateDTO;
+import rs.ac.uns.ftn.pkisystem.dto.RevokeCertificateRequest;
+import rs.ac.uns.ftn.pkisystem.dto.SubtreeRevocationDTO;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateStatus;
+import rs.ac.uns.ftn.pkisystem.entity.CertificateType;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.entity.User;
+import rs.ac.uns.ftn.pkisystem.repository.CertificateRepository;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CertificateSubtreeRevocationTest extends PkiIntegrationTest {
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    private User admin;
+
+    // root -> intermediate -> {leaf, nested -> nestedLeaf, alreadyRevoked}, root -> sibling
+    private CertificateDTO root;
+    private CertificateDTO intermediate;
+    private CertificateDTO leaf;
+    private CertificateDTO nested;
+    private CertificateDTO nestedLeaf;
+    private CertificateDTO alreadyRevoked;
+    private CertificateDTO sibling;
+
+    @BeforeEach
+    void setUp() {
+        admin = createUser(Role.ADMIN);
+        actAs(admin);
+
+        root = issue(CertificateType.ROOT, null);
+        intermediate = issue(CertificateType.INTERMEDIATE, root.getId());
+        leaf = issue(CertificateType.END_ENTITY, intermediate.getId());
+        nested = issue(CertificateType.INTERMEDIATE, intermediate.getId());
+        nestedLeaf = issue(CertificateType.END_ENTITY, nested.getId());
+        alreadyRevoked = issue(CertificateType.END_ENTITY, intermediate.getId());
+        sibling = issue(CertificateType.END_ENTITY, root.getId());
+
+        certificateService.revokeCertificate(alreadyRevoked.getId(), reason("superseded"));
+    }
+
+    @Test
+    void revokesTheCertificateAndEveryActiveDescendant() {
+        SubtreeRevocationDTO result = certificateService.revokeCertificateSubtree(intermediate.getId(),
+                reason("cACompromise"));
+
+        // intermediate, leaf, nested, nestedLeaf; alreadyRevoked was not ACTIVE
+        assertEquals(4, result.getRevokedCount());
+        for (CertificateDTO certificate : new CertificateDTO[]{intermediate, leaf, nested, nestedLeaf}) {
+            assertEquals(CertificateStatus.REVOKED, statusOf(certificate));
+            assertEquals("cACompromise",
+                    certificateRepository.findById(certificate.getId()).orElseThrow().getRevocationReason());
+        }
+        assertEquals("superseded",
+                certificateRepository.findById(alreadyRevoked.getId()).orElseThrow().getRevocationReason());
+        assertEquals(CertificateStatus.ACTIVE, statusOf(root));
+        assertEquals(CertificateStatus.ACTIVE, statusOf(sibling));
+
+        actAs(admin);
+        assertThrows(IllegalArgumentException.class,
+                () -> certificateService.revokeCertificateSubtree(intermediate.getId(), reason("cACompromise")));
+    }
+
+    @Test
+    void publishedCrlsListTheRevokedSubtree() throws Exception {
+        // Publish before revoking, so the test also covers the cached CRLs being dropped
+        assertNull(fetchCrl(root).getRevokedCertificate(serialOf(intermediate)));
+        assertNull(fetchCrl(intermediate).getRevokedCertificate(serialOf(leaf)));
+
+        actAs(admin);
+        certificateService.revokeCertificateSubtree(intermediate.getId(), reason("cACompromise"));
+
+        X509CRLHolder rootCrl = fetchCrl(root);
+        assertNotNull(rootCrl.getRevokedCertificate(serialOf(intermediate)));
+        assertNull(rootCrl.getRevokedCertificate(serialOf(sibling)));
+
+        X509CRLHolder intermediateCrl = fetchCrl(intermediate);
+        assertNotNull(intermediateCrl.getRevokedCertificate(serialOf(leaf)));
+        assertNotNull(intermediateCrl.getRevokedCertificate(serialOf(nested)));
+        assertNotNull(intermediateCrl.getRevokedCertificate(serialOf(alreadyRevoked)));
+        assertEquals(3, intermediateCrl.getRevokedCertificates().size());
+
+        X509CRLHolder nestedCrl = fetchCrl(nested);
+        assertNotNull(nestedCrl.getRevokedCertificate(serialOf(nestedLeaf)));
+        assertEquals(1, nestedCrl.getRevokedCertificates().size());
+    }
+
+    private X509CRLHolder fetchCrl(CertificateDTO issuer) throws Exception {
+        byte[] body = mockMvc.perform(get("/api/crl/" + issuer.getId() + ".crl"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        return new X509CRLHolder(body);
+    }
+
+    private CertificateStatus statusOf(CertificateDTO certificate) {
+        return certificateRepository.findById(certificate.getId()).orElseThrow().getStatus();
+    }
+
+    private static BigInteger serialOf(CertificateDTO certificate) {
+        return new BigInteger(certificate.getSerialNumber());
+    }
+
+    private static RevokeCertificateRequest reason(String reason) {
+        RevokeCertificateRequest request = new RevokeCertificateRequest();
+        request.setReason(reason);
+        return request;
+    }
+}
@@ -0,0 +1,75 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import rs.ac.uns.ftn.pkisystem.PkiIntegrationTest;
+import rs.ac.uns.ftn.pkisystem.dto.IssuanceJobDTO;
+import rs.ac.uns.ftn.pkisystem.entity.IssuanceJob;
+import rs.ac.uns.ftn.pkisystem.entity.IssuanceJobStatus;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.entity.User;
+import rs.ac.uns.ftn.pkisystem.repository.IssuanceJobRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IssuanceJobServiceTest extends PkiIntegrationTest {
+
+    @Autowired
+    private IssuanceJobService issuanceJobService;
+
+    @Autowired
+    private IssuanceJobRepository issuanceJobRepository;
+
+    @Test
+    void timedOutWaiterIsDropped() {
+        IssuanceJob job = runningJob();
+
+        IssuanceJobDTO result = issuanceJobService.awaitJob(job.getId(), 50).join();
+
+        assertEquals(IssuanceJobStatus.RUNNING, result.getStatus());
+        assertFalse(waiters().containsKey(job.getId()));
+    }
+
+    @Test
+    void jobFinishedOnAnotherNodeWakesWaiterOnPoll() throws Exception {
+        IssuanceJob job = runningJob();
+
+        CompletableFuture<IssuanceJobDTO> waiting = issuanceJobService.awaitJob(job.getId(), 60_000);
+        assertFalse(waiting.isDone());
+
+        // Another node's worker only leaves the finished row behind
+        issuanceJobRepository.finish(job.getId(), job.getStartedAt(), IssuanceJobStatus.FAILED, null,
+                "failed elsewhere", LocalDateTime.now());
+        issuanceJobService.pollWaiters();
+
+        IssuanceJobDTO result = waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(IssuanceJobStatus.FAILED, result.getStatus());
+        assertFalse(waiters().containsKey(job.getId()));
+    }
+
+    // Claimed by a worker elsewhere, so this node's dispatcher leaves it alone
+    private IssuanceJob runningJob() {
+        User requester = createUser(Role.CA_USER);
+        IssuanceJob job = new IssuanceJob(requester, "{}");
+        job.setStatus(IssuanceJobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        job = issuanceJobRepository.save(job);
+
+        actAs(requester);
+        return job;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, ?> waiters() {
+        Object target = AopTestUtils.getTargetObject(issuanceJobService);
+        return (Map<Long, ?>) ReflectionTestUtils.getField(target, "waiters");
+    }
+}
@@ -0,0 +1,120 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import rs.ac.uns.ftn.pkisystem.PkiIntegrationTest;
+import rs.ac.uns.ftn.pkisystem.entity.JwtSigningKey;
+import rs.ac.uns.ftn.pkisystem.repository.JwtSigningKeyRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Other nodes are simulated with extra JwtKeyService instances sharing this context's database
+class JwtKeyServiceTest extends PkiIntegrationTest {
+
+    @Autowired
+    private JwtKeyService jwtKeyService;
+
+    @Autowired
+    private JwtSigningKeyRepository jwtSigningKeyRepository;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    private final List<JwtKeyService> nodes = new ArrayList<>();
+
+    @AfterEach
+    void destroyNodes() {
+        nodes.forEach(beanFactory::destroyBean);
+    }
+
+    @Test
+    void anotherNodeSignsWithTheSharedKey() throws Exception {
+        JwtKeyService.ActiveKey local = jwtKeyService.getSigningKey();
+
+        JwtKeyService.ActiveKey remote = newNode().getSigningKey();
+        assertEquals(local.getKid(), remote.getKid());
+
+        byte[] payload = "header.claims".getBytes(StandardCharsets.US_ASCII);
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initSign(remote.getPrivateKey());
+        signer.update(payload);
+        byte[] signature = signer.sign();
+
+        PublicKey published = jwtKeyService.getVerificationKey(remote.getKid());
+        Signature verifier = Signature.getInstance("SHA256withECDSA");
+        verifier.initVerify(published);
+        verifier.update(payload);
+        assertTrue(verifier.verify(signature));
+    }
+
+    @Test
+    void nodesRotatingTogetherAgreeOnOneSuccessorPerSlot() {
+        jwtKeyService.getSigningKey();
+
+        // A pre-publication window longer than the rotation makes every refresh want a successor
+        List<JwtKeyService> rotating = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            JwtKeyService node = newNode();
+            ReflectionTestUtils.setField(node, "prepublishSeconds", 48 * 3600L);
+            rotating.add(node);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> refreshes = new ArrayList<>();
+        for (JwtKeyService node : rotating) {
+            refreshes.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                node.refresh();
+            }));
+        }
+        start.countDown();
+        refreshes.forEach(CompletableFuture::join);
+
+        String signingKid = jwtKeyService.getSigningKey().getKid();
+        for (JwtKeyService node : rotating) {
+            assertEquals(signingKid, node.getSigningKey().getKid());
+        }
+
+        List<JwtSigningKey> keys = jwtSigningKeyRepository.findByExpiresAtAfter(LocalDateTime.now());
+        assertEquals(keys.size(), keys.stream().map(JwtSigningKey::getActivatesAt).distinct().count());
+    }
+
+    @Test
+    void secondKeyForTheSameSlotIsRejected() {
+        LocalDateTime activatesAt = LocalDateTime.now().plusYears(1).withNano(0);
+        jwtSigningKeyRepository.saveAndFlush(key(activatesAt));
+
+        assertThrows(DataIntegrityViolationException.class, () -> jwtSigningKeyRepository.saveAndFlush(key(activatesAt)));
+    }
+
+    private JwtKeyService newNode() {
+        JwtKeyService node = beanFactory.createBean(JwtKeyService.class);
+        nodes.add(node);
+        return node;
+    }
+
+    private static JwtSigningKey key(LocalDateTime activatesAt) {
+        JwtSigningKey key = new JwtSigningKey(UUID.randomUUID().toString(), JwtKeyService.ALGORITHM, new byte[]{1},
+                activatesAt, activatesAt.plusHours(24), activatesAt.plusHours(25));
+        key.setPrivateKey("unused");
+        return key;
+    }
+}
@@ -0,0 +1,218 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rs.ac.uns.ftn.pkisystem.exception.KeystoreException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeystoreShardTest {
+
+    private static final String PASSWORD = "entry-password";
+
+    @TempDir
+    Path directory;
+
+    private Path keystorePath;
+    private Path journalPath;
+
+    @BeforeEach
+    void setUp() {
+        keystorePath = directory.resolve("shard.p12");
+        journalPath = directory.resolve("shard.journal");
+    }
+
+    @Test
+    void journaledEntriesSurviveRestartWithoutCompaction() throws Exception {
+        KeyPair keyPair = generateKeyPair();
+        X509Certificate certificate = selfSigned(keyPair, "CN=Key");
+        X509Certificate trusted = selfSigned(generateKeyPair(), "CN=Trusted");
+
+        KeystoreShard shard = openShard();
+        shard.setKeyEntry("key", keyPair.getPrivate(), PASSWORD.toCharArray(), PASSWORD, new Certificate[]{certificate});
+        shard.setCertificateEntry("trusted", trusted);
+        shard.close();
+
+        KeystoreShard reopened = openShard();
+        assertEquals(keyPair.getPrivate(), reopened.getKey("key", PASSWORD.toCharArray()));
+        assertEquals(trusted, reopened.getCertificate("trusted"));
+        reopened.close();
+    }
+
+    @Test
+    void journaledKeyIsProtectedByItsEntryPassword() throws Exception {
+        KeyPair keyPair = generateKeyPair();
+        KeystoreShard shard = openShard();
+        shard.setKeyEntry("key", keyPair.getPrivate(), PASSWORD.toCharArray(), PASSWORD,
+                new Certificate[]{selfSigned(keyPair, "CN=Key")});
+        shard.close();
+
+        String record = Files.readString(journalPath, StandardCharsets.US_ASCII).trim();
+        byte[] entry = Base64.getDecoder().decode(record.split(" ")[3]);
+
+        KeyStore withKeystorePassword = KeyStore.getInstance("PKCS12");
+        assertThrows(IOException.class,
+                () -> withKeystorePassword.load(new ByteArrayInputStream(entry), "changeit".toCharArray()));
+
+        KeyStore withEntryPassword = KeyStore.getInstance("PKCS12");
+        withEntryPassword.load(new ByteArrayInputStream(entry), PASSWORD.toCharArray());
+        assertEquals(keyPair.getPrivate(), withEntryPassword.getKey("key", PASSWORD.toCharArray()));
+    }
+
+    @Test
+    void failedJournalWriteLeavesMemoryUnchanged() throws Exception {
+        KeyPair keyPair = generateKeyPair();
+        KeystoreShard shard = openShard();
+        // A closed journal rejects the append, as a full disk would
+        shard.close();
+
+        assertThrows(IOException.class, () -> shard.setKeyEntry("key", keyPair.getPrivate(),
+                PASSWORD.toCharArray(), PASSWORD, new Certificate[]{selfSigned(keyPair, "CN=Key")}));
+        assertThrows(IOException.class,
+                () -> shard.setCertificateEntry("trusted", selfSigned(generateKeyPair(), "CN=Trusted")));
+
+        assertNull(shard.getKey("key", PASSWORD.toCharArray()));
+        assertNull(shard.getCertificate("trusted"));
+    }
+
+    @Test
+    void tornRecordAtTheEndIsDiscardedAndLaterRecordsReplay() throws Exception {
+        KeystoreShard shard = openShard();
+        shard.setCertificateEntry("first", selfSigned(generateKeyPair(), "CN=First"));
+        shard.close();
+
+        // Crash in the middle of the next append: no terminating newline
+        Files.writeString(journalPath, "K second " + PASSWORD + " MIIJ", StandardCharsets.US_ASCII,
+                StandardOpenOption.APPEND);
+
+        KeystoreShard reopened = openShard();
+        assertNotNull(reopened.getCertificate("first"));
+        assertNull(reopened.getCertificate("second"));
+        reopened.setCertificateEntry("third", selfSigned(generateKeyPair(), "CN=Third"));
+        reopened.close();
+
+        // The torn bytes were cut off, so the record appended after them is intact
+        KeystoreShard again = openShard();
+        assertNotNull(again.getCertificate("first"));
+        assertNotNull(again.getCertificate("third"));
+        again.close();
+    }
+
+    @Test
+    void damagedLastRecordIsDiscarded() throws Exception {
+        KeystoreShard shard = openShard();
+        shard.setCertificateEntry("first", selfSigned(generateKeyPair(), "CN=First"));
+        shard.close();
+
+        // All four fields present, but the base64 payload was cut short
+        Files.writeString(journalPath, "C second - MIIBkTCB+wIJAKHB\n", StandardCharsets.US_ASCII,
+                StandardOpenOption.APPEND);
+
+        KeystoreShard reopened = openShard();
+        assertNotNull(reopened.getCertificate("first"));
+        assertNull(reopened.getCertificate("second"));
+        reopened.close();
+    }
+
+    @Test
+    void corruptionBeforeTheLastRecordFailsToOpen() throws Exception {
+        KeystoreShard shard = openShard();
+        shard.setCertificateEntry("first", selfSigned(generateKeyPair(), "CN=First"));
+        shard.setCertificateEntry("second", selfSigned(generateKeyPair(), "CN=Second"));
+        shard.close();
+
+        String journal = Files.readString(journalPath, StandardCharsets.US_ASCII);
+        Files.writeString(journalPath, "C broken - !!!\n" + journal, StandardCharsets.US_ASCII);
+
+        assertThrows(KeystoreException.class, this::openShard);
+    }
+
+    @Test
+    void compactionFoldsTheJournalIntoTheKeystore() throws Exception {
+        KeystoreShard shard = openShard();
+        shard.setCertificateEntry("first", selfSigned(generateKeyPair(), "CN=First"));
+        shard.compact();
+        shard.setCertificateEntry("second", selfSigned(generateKeyPair(), "CN=Second"));
+        shard.close();
+
+        assertTrue(Files.exists(keystorePath));
+        assertEquals(1, Files.readAllLines(journalPath, StandardCharsets.US_ASCII).size());
+
+        KeystoreShard reopened = openShard();
+        assertNotNull(reopened.getCertificate("first"));
+        assertNotNull(reopened.getCertificate("second"));
+        reopened.close();
+    }
+
+    @Test
+    void truncatedKeystoreFileFailsToOpenAndIsLeftAlone() throws Exception {
+        KeystoreShard shard = openShard();
+        shard.setCertificateEntry("first", selfSigned(generateKeyPair(), "CN=First"));
+        shard.compact();
+        shard.close();
+
+        byte[] keystore = Files.readAllBytes(keystorePath);
+        byte[] truncated = Arrays.copyOf(keystore, keystore.length / 2);
+        Files.write(keystorePath, truncated);
+
+        assertThrows(KeystoreException.class, this::openShard);
+        assertArrayEquals(truncated, Files.readAllBytes(keystorePath));
+    }
+
+    @Test
+    void wrongKeystorePasswordFailsToOpen() throws Exception {
+        KeystoreShard shard = openShard();
+        shard.setCertificateEntry("first", selfSigned(generateKeyPair(), "CN=First"));
+        shard.compact();
+        shard.close();
+
+        KeystoreShard wrongPassword = new KeystoreShard(keystorePath.toString(), journalPath.toString(), "wrong",
+                UnaryOperator.identity());
+        assertThrows(KeystoreException.class, wrongPassword::open);
+    }
+
+    private KeystoreShard openShard() throws Exception {
+        KeystoreShard shard = new KeystoreShard(keystorePath.toString(), journalPath.toString(), "changeit",
+                UnaryOperator.identity());
+        shard.open();
+        return shard;
+    }
+
+    static KeyPair generateKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    static X509Certificate selfSigned(KeyPair keyPair, String subjectDN) throws Exception {
+        X500Name subject = new X500Name(subjectDN);
+        Date now = new Date();
+        return new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(
+                subject, BigInteger.valueOf(now.getTime()), now, new Date(now.getTime() + 86_400_000L),
+                subject, keyPair.getPublic())
+                .build(new JcaContentSignerBuilder("SHA256WithECDSA").build(keyPair.getPrivate())));
+    }
+}
@@ -0,0 +1,113 @@
+package rs.ac.uns.ftn.pkisystem.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.ac.uns.ftn.pkisystem.PkiIntegrationTest;
+import rs.ac.uns.ftn.pkisystem.entity.Role;
+import rs.ac.uns.ftn.pkisystem.entity.TokenRevocationEvent;
+import rs.ac.uns.ftn.pkisystem.entity.User;
+import rs.ac.uns.ftn.pkisystem.repository.TokenRevocationEventRepository;
+import rs.ac.uns.ftn.pkisystem.security.JwtUtil;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationRegistryTest extends PkiIntegrationTest {
+
+    @Autowired
+    private TokenRevocationRegistry tokenRevocationRegistry;
+
+    @Autowired
+    private TokenRevocationEventRepository tokenRevocationEventRepository;
+
+    @Autowired
+    private UserTokenService userTokenService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void revocationTakesEffectOnCommit() {
+        String jti = UUID.randomUUID().toString();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            tokenRevocationRegistry.revokeToken(jti, LocalDateTime.now().plusHours(1));
+            assertFalse(tokenRevocationRegistry.isRevoked(jti, null, null));
+        });
+
+        assertTrue(tokenRevocationRegistry.isRevoked(jti, null, null));
+    }
+
+    @Test
+    void rolledBackRevocationIsNeverApplied() {
+        String jti = UUID.randomUUID().toString();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            tokenRevocationRegistry.revokeToken(jti, LocalDateTime.now().plusHours(1));
+            status.setRollbackOnly();
+        });
+
+        tokenRevocationRegistry.poll();
+        assertFalse(tokenRevocationRegistry.isRevoked(jti, null, null));
+    }
+
+    @Test
+    void tokenRevokedOnAnotherNodeIsPickedUpByPoll() {
+        String jti = UUID.randomUUID().toString();
+        User user = createUser(Role.END_USER);
+        Date issuedAt = new Date();
+
+        // Written straight to the change feed, as another node's revocation would be
+        tokenRevocationEventRepository.save(TokenRevocationEvent.forToken(jti, LocalDateTime.now().plusHours(1)));
+        tokenRevocationRegistry.poll();
+
+        assertTrue(tokenRevocationRegistry.isRevoked(jti, user.getId(), issuedAt));
+        assertFalse(userTokenService.isTokenActive(jti, user.getId(), issuedAt));
+    }
+
+    @Test
+    void userWideRevocationOnAnotherNodeOnlyCoversEarlierTokens() throws Exception {
+        User user = createUser(Role.END_USER);
+        Date issuedBefore = issuedAt(user);
+        awaitNextSecond();
+
+        LocalDateTime now = LocalDateTime.now();
+        tokenRevocationEventRepository.save(TokenRevocationEvent.forUser(user.getId(), now, now.plusHours(1)));
+        tokenRevocationRegistry.poll();
+
+        // Issued in the same second as the revocation, or later; iat can't tell which, so it stays valid
+        Date issuedAfter = issuedAt(user);
+
+        assertFalse(userTokenService.isTokenActive(UUID.randomUUID().toString(), user.getId(), issuedBefore));
+        assertTrue(userTokenService.isTokenActive(UUID.randomUUID().toString(), user.getId(), issuedAfter));
+    }
+
+    @Test
+    void revokeAllUserTokensAppliesLocallyAfterCommit() throws Exception {
+        User user = createUser(Role.END_USER);
+        Date issuedBefore = issuedAt(user);
+        awaitNextSecond();
+
+        userTokenService.revokeAllUserTokens(user);
+        Date issuedAfter = issuedAt(user);
+
+        assertFalse(userTokenService.isTokenActive(UUID.randomUUID().toString(), user.getId(), issuedBefore));
+        assertTrue(userTokenService.isTokenActive(UUID.randomUUID().toString(), user.getId(), issuedAfter));
+    }
+
+    // The iat claim only has whole seconds, so compare against what a real token carries
+    private Date issuedAt(User user) {
+        return jwtUtil.parseToken(jwtUtil.generateToken(user)).getIssuedAt();
+    }
+
+    private static void awaitNextSecond() throws InterruptedException {
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10);
+    }
+}
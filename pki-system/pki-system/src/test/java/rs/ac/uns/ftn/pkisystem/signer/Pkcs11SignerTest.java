@@ -0,0 +1,183 @@
+package rs.ac.uns.ftn.pkisystem.signer;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.exception.SignerException;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.Provider;
+import java.security.Security;
+import java.security.Signature;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Against a throwaway SoftHSM token. Skipped unless softhsm2-util is on the PATH and the module is found,
+// either through SOFTHSM2_LIB or in one of the usual install locations.
+@EnabledIf("softHsmAvailable")
+class Pkcs11SignerTest {
+
+    private static final String PIN = "1234";
+    private static final String ALGORITHM = "SHA256withECDSA";
+    private static final String ALIAS = "intermediate_pkcs11";
+
+    private static final List<String> LIBRARY_LOCATIONS = List.of(
+            "/usr/lib/softhsm/libsofthsm2.so",
+            "/usr/lib/x86_64-linux-gnu/softhsm/libsofthsm2.so",
+            "/usr/lib64/pkcs11/libsofthsm2.so",
+            "/usr/local/lib/softhsm/libsofthsm2.so",
+            "/opt/homebrew/lib/softhsm/libsofthsm2.so");
+
+    @TempDir
+    Path directory;
+
+    private String tokenLabel;
+    private KeyPair keyPair;
+    private Pkcs11Signer signer;
+
+    static boolean softHsmAvailable() {
+        if (library() == null) {
+            return false;
+        }
+        try {
+            return run("softhsm2-util", "--version").exitCode == 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tokenLabel = "pki-test-" + UUID.randomUUID().toString().substring(0, 8);
+        Result init = run("softhsm2-util", "--init-token", "--free", "--label", tokenLabel,
+                "--pin", PIN, "--so-pin", PIN);
+        assertEquals(0, init.exitCode, init.output);
+
+        // --free puts the token in a new slot and reports its id
+        Matcher slot = Pattern.compile("reassigned to slot (\\d+)").matcher(init.output);
+        assertTrue(slot.find(), init.output);
+
+        Path config = directory.resolve("pkcs11.cfg");
+        Files.writeString(config, "name = " + tokenLabel + "\n" +
+                "library = " + library() + "\n" +
+                "slot = " + slot.group(1) + "\n", StandardCharsets.US_ASCII);
+
+        // Put an issuing key on the token the way an operator would import one
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        keyPair = generator.generateKeyPair();
+
+        Provider provider = Security.getProvider("SunPKCS11").configure(config.toString());
+        KeyStore token = KeyStore.getInstance("PKCS11", provider);
+        token.load(null, PIN.toCharArray());
+        token.setKeyEntry(ALIAS, keyPair.getPrivate(), null, new X509Certificate[]{selfSigned(keyPair)});
+
+        signer = new Pkcs11Signer();
+        ReflectionTestUtils.setField(signer, "configPath", config.toString());
+        ReflectionTestUtils.setField(signer, "pin", PIN);
+        ReflectionTestUtils.setField(signer, "sessions", 2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (signer != null) {
+            signer.shutdown();
+        }
+        run("softhsm2-util", "--delete-token", "--token", tokenLabel);
+    }
+
+    @Test
+    void signsEveryPayloadWithTheTokenKey() throws Exception {
+        List<byte[]> payloads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            payloads.add(("tbs-certificate-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<byte[]> signatures = signer.signBatch(issuer(ALIAS), ALGORITHM, payloads).join();
+
+        assertEquals(payloads.size(), signatures.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            Signature signature = Signature.getInstance(ALGORITHM);
+            signature.initVerify(keyPair.getPublic());
+            signature.update(payloads.get(i));
+            assertTrue(signature.verify(signatures.get(i)), "signature " + i);
+        }
+    }
+
+    @Test
+    void missingKeyFailsTheBatch() {
+        CompletionException e = assertThrows(CompletionException.class, () -> signer.signBatch(
+                issuer("no-such-alias"), ALGORITHM, List.of(new byte[]{1})).join());
+        assertInstanceOf(SignerException.class, e.getCause());
+    }
+
+    private static Certificate issuer(String alias) {
+        Certificate issuer = new Certificate();
+        issuer.setKeystoreAlias(alias);
+        return issuer;
+    }
+
+    private static X509Certificate selfSigned(KeyPair keyPair) throws Exception {
+        X500Name name = new X500Name("CN=PKCS11 Test");
+        Date now = new Date();
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(name, BigInteger.ONE, now,
+                new Date(now.getTime() + 86_400_000L), name, keyPair.getPublic());
+        return new JcaX509CertificateConverter().getCertificate(
+                builder.build(new JcaContentSignerBuilder(ALGORITHM).build(keyPair.getPrivate())));
+    }
+
+    private static String library() {
+        String configured = System.getenv("SOFTHSM2_LIB");
+        return Stream.concat(Stream.ofNullable(configured), LIBRARY_LOCATIONS.stream())
+                .filter(path -> Files.isReadable(Paths.get(path)))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static Result run(String... command) throws IOException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        try {
+            return new Result(process.waitFor(), output);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted running " + command[0], e);
+        }
+    }
+
+    private static class Result {
+        private final int exitCode;
+        private final String output;
+
+        Result(int exitCode, String output) {
+            this.exitCode = exitCode;
+            this.output = output;
+        }
+    }
+}
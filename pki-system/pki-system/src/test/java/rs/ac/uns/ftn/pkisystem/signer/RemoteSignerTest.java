@@ -0,0 +1,157 @@
+package rs.ac.uns.ftn.pkisystem.signer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+import rs.ac.uns.ftn.pkisystem.entity.Certificate;
+import rs.ac.uns.ftn.pkisystem.exception.SignerException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Against a stub signing service on a local port, speaking the same JSON as the real one
+class RemoteSignerTest {
+
+    private static final String ALGORITHM = "SHA256withECDSA";
+    private static final String KEY_ID = "intermediate_1234";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<RemoteSigner.SignRequest> requests = new CopyOnWriteArrayList<>();
+
+    private KeyPair keyPair;
+    private HttpServer server;
+    private RemoteSigner signer;
+
+    // Signatures the stub leaves off the end of each response
+    private volatile int dropSignatures;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        keyPair = generator.generateKeyPair();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/sign", this::handleSign);
+        server.start();
+
+        signer = new RemoteSigner();
+        ReflectionTestUtils.setField(signer, "restTemplate", new RestTemplate());
+        ReflectionTestUtils.setField(signer, "url", "http://127.0.0.1:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(signer, "batchSize", 2);
+        ReflectionTestUtils.setField(signer, "maxInFlight", 2);
+        signer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        signer.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void batchIsSplitIntoRequestsAndSignaturesKeepPayloadOrder() throws Exception {
+        List<byte[]> payloads = payloads(5);
+
+        List<byte[]> signatures = signer.signBatch(issuer(), ALGORITHM, payloads).join();
+
+        assertEquals(payloads.size(), signatures.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            assertTrue(verify(payloads.get(i), signatures.get(i)), "signature " + i);
+        }
+
+        assertEquals(3, requests.size());
+        for (RemoteSigner.SignRequest request : requests) {
+            assertEquals(KEY_ID, request.getKeyId());
+            assertEquals(ALGORITHM, request.getAlgorithm());
+        }
+    }
+
+    @Test
+    void incompleteResponseFailsTheBatch() {
+        dropSignatures = 1;
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> signer.signBatch(issuer(), ALGORITHM, payloads(2)).join());
+        assertInstanceOf(SignerException.class, e.getCause());
+    }
+
+    @Test
+    void serverErrorFailsTheBatch() {
+        server.removeContext("/sign");
+        server.createContext("/sign", exchange -> respond(exchange, 500, "{}"));
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> signer.signBatch(issuer(), ALGORITHM, payloads(1)).join());
+        assertInstanceOf(SignerException.class, e.getCause());
+    }
+
+    private void handleSign(HttpExchange exchange) throws IOException {
+        RemoteSigner.SignRequest request = objectMapper.readValue(
+                exchange.getRequestBody(), RemoteSigner.SignRequest.class);
+        requests.add(request);
+
+        List<String> signatures = new ArrayList<>();
+        try {
+            for (String payload : request.getPayloads()) {
+                Signature signature = Signature.getInstance(request.getAlgorithm());
+                signature.initSign(keyPair.getPrivate());
+                signature.update(Base64.getDecoder().decode(payload));
+                signatures.add(Base64.getEncoder().encodeToString(signature.sign()));
+            }
+        } catch (Exception e) {
+            respond(exchange, 500, "{}");
+            return;
+        }
+
+        RemoteSigner.SignResponse response = new RemoteSigner.SignResponse();
+        response.setSignatures(signatures.subList(0, signatures.size() - dropSignatures));
+        respond(exchange, 200, objectMapper.writeValueAsString(response));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private boolean verify(byte[] payload, byte[] signatureBytes) throws Exception {
+        Signature signature = Signature.getInstance(ALGORITHM);
+        signature.initVerify(keyPair.getPublic());
+        signature.update(payload);
+        return signature.verify(signatureBytes);
+    }
+
+    private static Certificate issuer() {
+        Certificate issuer = new Certificate();
+        issuer.setKeystoreAlias(KEY_ID);
+        return issuer;
+    }
+
+    private static List<byte[]> payloads(int count) {
+        List<byte[]> payloads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            payloads.add(("tbs-certificate-" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return payloads;
+    }
+}